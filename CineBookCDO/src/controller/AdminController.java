@@ -1,22 +1,40 @@
 package controller;
 
+import model.Session;
 import model.User;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Controller class for admin-related operations and user authentication
+ * Controller class for admin-related operations and user authentication.
+ * Passwords are stored as PBKDF2 hashes. Checking one takes tens of milliseconds,
+ * so the Swing panels use the async login methods.
+ *
+ * Any number of users can be logged in at once, each with their own session token.
+ * The "current user" methods serve the desktop window and are backed by one default session.
  */
 public class AdminController {
-    private List<User> users;
+    private final UserDirectory users;
     private final String ADMIN_USERNAME = "admin";
     private final String ADMIN_PASSWORD = "admin123";
-    private User currentUser; // Tracks the currently logged-in user
+    private final SessionManager sessions;
+    private volatile Session currentSession; // The desktop window's session; null when logged out
+    private BookingJournal journal; // Null when changes are not persisted
+    private final PasswordHasher passwordHasher;
+    private final CredentialVerifier credentialVerifier;
 
     public AdminController() {
-        this.users = new ArrayList<>();
-        this.currentUser = null;
+        this(new PasswordHasher());
+    }
+
+    public AdminController(PasswordHasher passwordHasher) {
+        this.users = new UserDirectory();
+        this.passwordHasher = passwordHasher;
+        this.credentialVerifier = new CredentialVerifier(passwordHasher);
+        this.sessions = new SessionManager();
+        this.currentSession = null;
         initializeUsers();
     }
 
@@ -25,12 +43,20 @@ public class AdminController {
      */
     private void initializeUsers() {
         // Add admin user
-        users.add(new User(ADMIN_USERNAME, ADMIN_PASSWORD, true));
+        users.add(new User(ADMIN_USERNAME, passwordHasher.hash(ADMIN_PASSWORD), true));
         
         // Add some sample regular users with passwords
-        users.add(new User("john", "pass123", "john@example.com", "John Smith"));
-        users.add(new User("maria", "pass123", "maria@example.com", "Maria Rodriguez"));
-        users.add(new User("alex", "pass123", "alex@example.com", "Alex Johnson"));
+        String samplePasswordHash = passwordHasher.hash("pass123");
+        users.add(new User("john", samplePasswordHash, "john@example.com", "John Smith"));
+        users.add(new User("maria", samplePasswordHash, "maria@example.com", "Maria Rodriguez"));
+        users.add(new User("alex", samplePasswordHash, "alex@example.com", "Alex Johnson"));
+    }
+
+    /**
+     * Sets the journal that user changes are recorded in (null to stop recording)
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
     }
 
     /**
@@ -41,23 +67,12 @@ public class AdminController {
             return false;
         }
         
-        // Check for the default admin
-        if (username.equals(ADMIN_USERNAME) && password.equals(ADMIN_PASSWORD)) {
-            User adminUser = getUserByUsername(ADMIN_USERNAME);
-            if (adminUser != null) {
-                loginUser(adminUser);
-            }
+        User user = users.get(username);
+        if (user != null && user.isAdmin() && checkPassword(user, password)) {
+            loginUser(user);
             return true;
         }
         
-        // Check for other admin users
-        for (User user : users) {
-            if (user.isAdmin() && username.equals(user.getUsername()) && user.validatePassword(password)) {
-                loginUser(user);
-                return true;
-            }
-        }
-        
         return false;
     }
     
@@ -70,7 +85,7 @@ public class AdminController {
         }
         
         User user = getUserByUsername(username);
-        if (user != null && user.validatePassword(password)) {
+        if (user != null && checkPassword(user, password)) {
             loginUser(user);
             return true;
         }
@@ -79,20 +94,92 @@ public class AdminController {
     }
     
     /**
-     * Sets the user as logged in and updates login time
+     * Validates admin login credentials on the password checking pool
+     */
+    public CompletableFuture<Boolean> validateAdminLoginAsync(String username, String password) {
+        return credentialVerifier.submit(() -> validateAdminLogin(username, password));
+    }
+    
+    /**
+     * Validates user login credentials on the password checking pool
+     */
+    public CompletableFuture<Boolean> validateUserLoginAsync(String username, String password) {
+        return credentialVerifier.submit(() -> validateUserLogin(username, password));
+    }
+    
+    /**
+     * Checks a password, upgrading the stored hash if it is plain text or uses an old iteration count
+     */
+    private boolean checkPassword(User user, String password) {
+        if (!credentialVerifier.verify(user, password)) {
+            return false;
+        }
+        
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            user.setPasswordHash(passwordHasher.hash(password));
+            journalUserSaved(user);
+        }
+        return true;
+    }
+    
+    /**
+     * Checks credentials and starts a new session, or returns null if they are wrong
+     */
+    public Session createSession(String username, String password) {
+        User user = getUserByUsername(username);
+        if (user == null || password == null || !checkPassword(user, password)) {
+            return null;
+        }
+        
+        user.recordLogin();
+        return sessions.create(user);
+    }
+    
+    /**
+     * Checks credentials and starts a new session on the password checking pool
+     */
+    public CompletableFuture<Session> createSessionAsync(String username, String password) {
+        return credentialVerifier.submit(() -> createSession(username, password));
+    }
+    
+    /**
+     * Gets a live session by its token, or null if it is unknown or has expired
+     */
+    public Session getSession(String token) {
+        return sessions.get(token);
+    }
+    
+    /**
+     * Ends a session
+     */
+    public boolean endSession(String token) {
+        return sessions.end(token);
+    }
+    
+    public SessionManager getSessionManager() {
+        return sessions;
+    }
+    
+    /**
+     * Starts a new default session for the user, replacing the previous one
      */
     private void loginUser(User user) {
-        user.setLoggedIn(true);
-        this.currentUser = user;
+        user.recordLogin();
+        Session previous = currentSession;
+        currentSession = sessions.create(user);
+        if (previous != null) {
+            sessions.end(previous.getToken());
+        }
     }
     
     /**
      * Logs out the current user
      */
     public void logoutCurrentUser() {
-        if (currentUser != null) {
-            currentUser.setLoggedIn(false);
-            currentUser = null;
+        Session session = currentSession;
+        if (session != null) {
+            currentSession = null;
+            sessions.end(session.getToken());
         }
     }
 
@@ -100,12 +187,14 @@ public class AdminController {
      * Gets a user by username
      */
     public User getUserByUsername(String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
-            }
-        }
-        return null;
+        return users.get(username);
+    }
+    
+    /**
+     * Gets a user by email address, ignoring case
+     */
+    public User getUserByEmail(String email) {
+        return users.getByEmail(email);
     }
     
     /**
@@ -123,33 +212,53 @@ public class AdminController {
             return null; // Username already exists
         }
         
-        User newUser = new User(username, password, email, fullName);
-        addUser(newUser);
+        User newUser = new User(username, passwordHasher.hash(password), email, fullName);
+        if (!addUser(newUser)) {
+            return null; // Registered by someone else in the meantime
+        }
         return newUser;
     }
 
     /**
-     * Adds a new user
+     * Adds a new user. Returns false if the username is already taken.
+     */
+    public boolean addUser(User user) {
+        if (!users.add(user)) {
+            return false;
+        }
+        journalUserSaved(user);
+        return true;
+    }
+
+    /**
+     * Adds or replaces a user restored from saved data, without journaling it again
+     */
+    public void restoreUser(User user) {
+        users.put(user);
+    }
+
+    /**
+     * Replaces all users with users restored from a snapshot
      */
-    public void addUser(User user) {
-        users.add(user);
+    public void restoreUsers(List<User> restoredUsers) {
+        users.replaceAll(restoredUsers);
     }
 
     /**
      * Removes a user
      */
     public void removeUser(String username) {
-        User userToRemove = null;
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                userToRemove = user;
-                break;
+        if (users.remove(username) != null) {
+            credentialVerifier.invalidate(username);
+            sessions.endAll(username);
+            if (journal != null) {
+                try {
+                    journal.logUserRemoved(username);
+                } catch (IOException e) {
+                    System.err.println("Failed to save user removal: " + e.getMessage());
+                }
             }
         }
-        
-        if (userToRemove != null) {
-            users.remove(userToRemove);
-        }
     }
     
     /**
@@ -158,9 +267,10 @@ public class AdminController {
     public boolean updateUserProfile(String username, String email, String fullName, String phoneNumber) {
         User user = getUserByUsername(username);
         if (user != null) {
-            user.setEmail(email);
+            users.setEmail(user, email);
             user.setFullName(fullName);
             user.setPhoneNumber(phoneNumber);
+            journalUserSaved(user);
             return true;
         }
         return false;
@@ -171,8 +281,10 @@ public class AdminController {
      */
     public boolean changePassword(String username, String oldPassword, String newPassword) {
         User user = getUserByUsername(username);
-        if (user != null && user.validatePassword(oldPassword)) {
-            user.setPassword(newPassword);
+        if (user != null && checkPassword(user, oldPassword)) {
+            user.setPasswordHash(passwordHasher.hash(newPassword));
+            credentialVerifier.invalidate(username);
+            journalUserSaved(user);
             return true;
         }
         return false;
@@ -182,47 +294,51 @@ public class AdminController {
      * Gets the currently logged in user
      */
     public User getCurrentUser() {
-        return currentUser;
+        Session session = getCurrentSession();
+        return session == null ? null : session.getUser();
+    }
+    
+    /**
+     * Gets the default session, or null if nobody is logged in or it has expired
+     */
+    public Session getCurrentSession() {
+        Session session = currentSession;
+        return session == null ? null : sessions.get(session.getToken());
     }
     
     /**
      * Checks if a user is currently logged in
      */
     public boolean isUserLoggedIn() {
-        return currentUser != null;
+        return getCurrentSession() != null;
     }
 
     /**
      * Gets all users
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        return users.getAll();
     }
 
     /**
      * Gets all admin users
      */
     public List<User> getAdminUsers() {
-        List<User> adminUsers = new ArrayList<>();
-        for (User user : users) {
-            if (user.isAdmin()) {
-                adminUsers.add(user);
-            }
-        }
-        return adminUsers;
+        return users.getAdmins();
     }
 
     /**
      * Gets all regular users
      */
     public List<User> getRegularUsers() {
-        List<User> regularUsers = new ArrayList<>();
-        for (User user : users) {
-            if (!user.isAdmin()) {
-                regularUsers.add(user);
-            }
-        }
-        return regularUsers;
+        return users.getRegularUsers();
+    }
+    
+    /**
+     * Gets the number of users
+     */
+    public int getUserCount() {
+        return users.size();
     }
 
     /**
@@ -239,8 +355,23 @@ public class AdminController {
      * Creates a new admin user
      */
     public User createAdminUser(String username, String password) {
-        User newAdmin = new User(username, password, true);
+        User newAdmin = new User(username, passwordHasher.hash(password), true);
         addUser(newAdmin);
         return newAdmin;
     }
+
+    /**
+     * Writes a registered or edited user to the journal
+     */
+    private void journalUserSaved(User user) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.logUserSaved(user);
+        } catch (IOException e) {
+            System.err.println("Failed to save user: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package controller;
+
+import model.Movie;
+import model.SeatHold;
+import model.SeatTier;
+import model.Showing;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs controller calls that may touch disk or a lot of data off the Swing thread.
+ *
+ * Each call is handed to a small bounded worker pool and returns a CompletableFuture;
+ * the controllers underneath are already safe to call from several threads. Futures
+ * complete on a worker thread, so panels must hand results back to the Swing thread
+ * themselves (e.g. with SwingUtilities.invokeLater in whenComplete). When the queue is
+ * full the returned future fails straight away instead of blocking the caller.
+ */
+public class AsyncControllerService {
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private final BookingController bookingController;
+    private final ReportController reportController;
+    private final AdminController adminController;
+    private final ThreadPoolExecutor executor;
+
+    public AsyncControllerService(BookingController bookingController, ReportController reportController,
+                                  AdminController adminController) {
+        this.bookingController = bookingController;
+        this.reportController = reportController;
+        this.adminController = adminController;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "controller-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs any controller task on the worker pool
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> busy = new CompletableFuture<>();
+            busy.completeExceptionally(e);
+            return busy;
+        }
+    }
+
+    /**
+     * Stops taking new tasks; tasks already queued still run
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Stops taking new tasks and waits up to timeoutMillis for the queued ones to finish,
+     * e.g. so confirmed sales are journaled before the journal is closed. Returns false
+     * if some were still running when the time ran out.
+     */
+    public boolean shutdownAndWait(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            return executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Sells seats for a showing and journals the sale
+     */
+    public CompletableFuture<Boolean> bookSeats(Showing showing, List<String> seats) {
+        return submit(() -> bookingController.bookSeats(showing, seats));
+    }
+
+    /**
+     * Holds seats for a showing, completing with null if any of them are taken
+     */
+    public CompletableFuture<SeatHold> holdSeats(Showing showing, List<String> seats) {
+        return submit(() -> bookingController.holdSeats(showing, seats));
+    }
+
+    /**
+     * Holds the best free seats for a group, completing with null if there are not enough
+     */
+    public CompletableFuture<SeatHold> holdBestSeats(Showing showing, int count, SeatTier tier) {
+        return submit(() -> bookingController.holdBestSeats(showing, count, tier));
+    }
+
+    /**
+     * Turns a hold into a sale, completing with false if the hold has expired
+     */
+    public CompletableFuture<Boolean> confirmHold(String holdId) {
+        return submit(() -> bookingController.confirmHold(holdId));
+    }
+
+    /**
+     * Gives held seats back
+     */
+    public CompletableFuture<Boolean> releaseHold(String holdId) {
+        return submit(() -> bookingController.releaseHold(holdId));
+    }
+
+    /**
+     * Cancels sold seats of a showing
+     */
+    public CompletableFuture<Boolean> cancelBooking(Showing showing, List<String> seats) {
+        return submit(() -> bookingController.cancelBooking(showing, seats));
+    }
+
+    /**
+     * Frees every held, sold and blocked seat of a showing, completing with the number freed
+     */
+    public CompletableFuture<Integer> releaseAllSeats(Showing showing) {
+        return submit(() -> bookingController.releaseAllSeats(showing));
+    }
+
+    /**
+     * Gets the rows of a report, completing with null if the report type is unknown
+     */
+    public CompletableFuture<ReportSeries> getReportSeries(String reportType) {
+        return submit(() -> reportController.getReportSeries(reportType));
+    }
+
+    /**
+     * Builds a report as text
+     */
+    public CompletableFuture<String> getReportAsString(String reportType) {
+        return submit(() -> reportController.getReportAsString(reportType));
+    }
+
+    /**
+     * Writes a report to a text file, completing with false if it could not be written
+     */
+    public CompletableFuture<Boolean> exportReportToFile(String reportType, String filePath) {
+        return submit(() -> reportController.exportReportToFile(reportType, filePath));
+    }
+
+    /**
+     * Streams the booking history to a file, completing with the number of rows written
+     * or -1 if the export failed
+     */
+    public CompletableFuture<Long> exportBookingHistory(ReportExporter.Format format, String filePath) {
+        return submit(() -> reportController.exportBookingHistory(format, filePath));
+    }
+
+    public CompletableFuture<Map<Movie, Integer>> getTicketSalesReport() {
+        return submit(reportController::getTicketSalesReport);
+    }
+
+    public CompletableFuture<Map<Movie, Double>> getRevenueReport() {
+        return submit(reportController::getRevenueReport);
+    }
+
+    public CompletableFuture<Map<Movie, Double>> getOccupancyReport() {
+        return submit(reportController::getOccupancyReport);
+    }
+
+    public CompletableFuture<Map<Showing, Double>> getShowingOccupancyReport(LocalDateTime from, LocalDateTime to) {
+        return submit(() -> reportController.getShowingOccupancyReport(from, to));
+    }
+
+    /**
+     * Checks admin credentials; runs on the password checking pool rather than this one
+     */
+    public CompletableFuture<Boolean> validateAdminLogin(String username, String password) {
+        return adminController.validateAdminLoginAsync(username, password);
+    }
+
+    /**
+     * Checks user credentials; runs on the password checking pool rather than this one
+     */
+    public CompletableFuture<Boolean> validateUserLogin(String username, String password) {
+        return adminController.validateUserLoginAsync(username, password);
+    }
+}
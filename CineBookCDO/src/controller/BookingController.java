@@ -1,147 +1,710 @@
 package controller;
 
-import model.Movie;
+import model.Booking;
+import model.Cinema;
+import model.HallLayout;
+import model.Seat;
+import model.SeatCode;
+import model.SeatHold;
+import model.SeatTier;
+import model.Showing;
+import model.User;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Controller class for booking-related operations
+ * Controller class for booking-related operations.
+ * Safe to call from several threads (e.g., multiple kiosks) at once. A seat change
+ * is written to the journal while its showing's seats are still locked, so the
+ * journal always has a showing's changes in the order they were made.
  */
 public class BookingController {
+    private static final long DEFAULT_HOLD_MILLIS = 10 * 60 * 1000; // 10 minutes to pay
+    private static final long HOLD_TICK_MILLIS = 1000;
+    private static final int HOLD_WHEEL_SIZE = 1024; // About 17 minutes per turn of the wheel
+    private static final int BEST_SEAT_ATTEMPTS = 3; // Tries when other customers take the chosen seats first
+
     private MovieController movieController;
-    private Map<Integer, List<String>> bookedSeats; // Map<showingId, List<seatId>>
+    private ShowingRegistry showingRegistry;
+    private HallLayoutRegistry hallLayouts;
+    private SeatChangeFeed seatChangeFeed;
+    private SeatInventory seatInventory;
+    private Map<String, SeatHold> activeHolds; // Map<holdId, hold>
+    private HoldTimer<SeatHold> holdTimer;
+    private long holdMillis;
+    private BookingJournal journal; // Null when changes are not persisted
+    private List<BookingListener> listeners;
     
     public BookingController(MovieController movieController) {
         this.movieController = movieController;
-        this.bookedSeats = new HashMap<>();
+        this.showingRegistry = movieController.getShowingRegistry();
+        this.hallLayouts = new HallLayoutRegistry();
+        for (Cinema cinema : movieController.getAllCinemas()) {
+            hallLayouts.registerCinema(cinema);
+        }
+        this.seatChangeFeed = new SeatChangeFeed(showingRegistry);
+        this.seatInventory = new SeatInventory(
+                handle -> hallLayouts.getLayout(showingRegistry.getByHandle(handle).getCinemaId()), seatChangeFeed);
+        this.activeHolds = new ConcurrentHashMap<>();
+        this.holdTimer = new HoldTimer<>(HOLD_TICK_MILLIS, HOLD_WHEEL_SIZE, System.currentTimeMillis());
+        this.holdMillis = DEFAULT_HOLD_MILLIS;
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+    
+    /**
+     * Gets the showing for a movie in a specific cinema at a specific time
+     */
+    public Showing getShowing(int movieId, int cinemaId, LocalDateTime showtime) {
+        return showingRegistry.getOrCreate(movieId, cinemaId, showtime);
+    }
+    
+    /**
+     * Gets the scheduled showing of a movie at a time. If the movie plays in several
+     * cinemas at that time, the one in the cinema with the lowest id is returned; if it
+     * is not scheduled then, the showing that has no cinema.
+     */
+    public Showing getShowing(int movieId, LocalDateTime showtime) {
+        LocalDateTime start = Showing.normalizeStartTime(showtime);
+        List<Showing> scheduled = movieController.getSchedule().getMovieShowingsBetween(movieId, start, start.plusMinutes(1));
+        return scheduled.isEmpty() ? getShowing(movieId, Showing.UNASSIGNED_CINEMA, showtime) : scheduled.get(0);
+    }
+    
+    /**
+     * Sets the journal that sales and cancellations are recorded in (null to stop recording)
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Gets the journal sales are recorded in, or null if they are not persisted
+     */
+    BookingJournal getJournal() {
+        return journal;
+    }
+    
+    /**
+     * Registers a listener to be told about every sale and cancellation
+     */
+    public void addBookingListener(BookingListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Removes a listener added with addBookingListener
+     */
+    public void removeBookingListener(BookingListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Gets the registry of all known showings
+     */
+    public ShowingRegistry getShowingRegistry() {
+        return showingRegistry;
+    }
+    
+    /**
+     * Starts sending a showing's seat changes (holds, sales, cancellations, blocks) to a
+     * listener. Only the changed seats are sent; see SeatChangeFeed.
+     */
+    public void subscribeSeatChanges(Showing showing, SeatChangeFeed.Listener listener) {
+        seatChangeFeed.subscribe(showing, listener);
+    }
+    
+    /**
+     * Stops sending a showing's seat changes to a listener
+     */
+    public void unsubscribeSeatChanges(Showing showing, SeatChangeFeed.Listener listener) {
+        seatChangeFeed.unsubscribe(showing, listener);
+    }
+    
+    /**
+     * Gets the registry of cinema hall layouts
+     */
+    public HallLayoutRegistry getHallLayoutRegistry() {
+        return hallLayouts;
+    }
+    
+    /**
+     * Gets the seat layout of the hall a showing is in
+     */
+    public HallLayout getHallLayout(Showing showing) {
+        return seatInventory.getLayout(showing.getHandle());
+    }
+    
+    /**
+     * Gets the code (with tier) of a seat in a showing's hall, or SeatCode.INVALID if the hall has no such seat
+     */
+    public int getSeatCode(Showing showing, String seatId) {
+        HallLayout layout = getHallLayout(showing);
+        return layout.getSeatCode(layout.toSeatIndex(seatId));
+    }
+    
+    /**
+     * Gets a seat of a showing's hall, priced by its tier in the hall. Returns null if the hall has no such seat.
+     */
+    public Seat getSeat(Showing showing, String seatId) {
+        int code = getSeatCode(showing, seatId);
+        if (code == SeatCode.INVALID) {
+            return null;
+        }
+        
+        Seat seat = new Seat(code);
+        seat.setAvailable(seatInventory.areAvailable(showing.getHandle(), Collections.singletonList(seat.getId())));
+        return seat;
+    }
+    
+    /**
+     * Creates an unpaid booking of seats in a showing, priced by the seats' tiers in its hall
+     */
+    public Booking createBooking(User user, Showing showing, List<String> seats) {
+        return new Booking(user, movieController.getMovieById(showing.getMovieId()),
+                showing.getStartTime(), seats, getHallLayout(showing));
+    }
+    
+    /**
+     * Gets a copy of a showing's held and sold seats, one bit per grid index of its hall layout
+     */
+    public long[] getTakenSeats(Showing showing) {
+        expireHolds();
+        return seatInventory.copyTaken(showing.getHandle());
     }
     
     /**
      * Gets available seats for a specific movie showing
      */
     public List<String> getAvailableSeats(int movieId, LocalDateTime showtime) {
-        int showingId = generateShowingId(movieId, showtime);
-        List<String> allSeats = generateAllSeats();
-        List<String> booked = bookedSeats.getOrDefault(showingId, new ArrayList<>());
-        
-        List<String> available = new ArrayList<>(allSeats);
-        available.removeAll(booked);
-        
-        return available;
+        return getAvailableSeats(getShowing(movieId, showtime));
+    }
+    
+    /**
+     * Gets available seats for a showing
+     */
+    public List<String> getAvailableSeats(Showing showing) {
+        expireHolds();
+        return seatInventory.getAvailableSeats(showing.getHandle());
     }
     
     /**
      * Books seats for a movie showing
      */
     public boolean bookSeats(int movieId, LocalDateTime showtime, List<String> seats) {
-        int showingId = generateShowingId(movieId, showtime);
-        
-        // Get currently booked seats
-        List<String> booked = bookedSeats.getOrDefault(showingId, new ArrayList<>());
+        return bookSeats(getShowing(movieId, showtime), seats);
+    }
+    
+    /**
+     * Books seats for a showing. Either all seats are booked or none are.
+     */
+    public boolean bookSeats(Showing showing, List<String> seats) {
+        expireHolds();
+        SeatChange sold;
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            sold = seatInventory.reserve(showing.getHandle(), seats);
+            if (sold == null) {
+                return false;
+            }
+            
+            if (!journalBooking(showing, seats)) {
+                seatInventory.release(showing.getHandle(), seats);
+                return false;
+            }
+        }
+        fireSeatsSold(showing, sold);
+        return true;
+    }
+    
+    /**
+     * Holds seats for a movie showing while the customer pays
+     */
+    public SeatHold holdSeats(int movieId, LocalDateTime showtime, List<String> seats) {
+        return holdSeats(getShowing(movieId, showtime), seats);
+    }
+    
+    /**
+     * Holds seats for a showing while the customer pays. Returns null if any seat is taken.
+     * The hold is released automatically if it is not confirmed in time.
+     */
+    public SeatHold holdSeats(Showing showing, List<String> seats) {
+        expireHolds();
+        if (seatInventory.hold(showing.getHandle(), seats) == null) {
+            return null;
+        }
         
-        // Check if any requested seats are already booked
-        for (String seat : seats) {
-            if (booked.contains(seat)) {
-                return false; // Seat already booked
+        SeatHold hold = new SeatHold(showing, seats, System.currentTimeMillis() + holdMillis);
+        activeHolds.put(hold.getId(), hold);
+        holdTimer.schedule(hold, hold.getExpiresAtMillis());
+        return hold;
+    }
+    
+    /**
+     * Finds the best free seats for a group in a showing: together in one row and as
+     * central as possible, split over several blocks only if no row has room.
+     * Pass a tier to only consider seats of that tier, or null for any seat.
+     * Returns an empty list if there are not enough free seats.
+     */
+    public List<String> findBestSeats(Showing showing, int count, SeatTier tier) {
+        expireHolds();
+        return BestSeatFinder.find(getHallLayout(showing), seatInventory.copyTaken(showing.getHandle()), count, tier);
+    }
+    
+    /**
+     * Holds the best free seats for a group while the customer pays (see findBestSeats).
+     * Returns null if there are not enough free seats.
+     */
+    public SeatHold holdBestSeats(Showing showing, int count, SeatTier tier) {
+        for (int attempt = 0; attempt < BEST_SEAT_ATTEMPTS; attempt++) {
+            List<String> seats = findBestSeats(showing, count, tier);
+            if (seats.isEmpty()) {
+                return null;
             }
+            
+            SeatHold hold = holdSeats(showing, seats);
+            if (hold != null) {
+                return hold;
+            }
+            // Someone took one of the seats in the meantime; look again
+        }
+        return null;
+    }
+    
+    /**
+     * Confirms a hold, turning the held seats into sold seats.
+     * Returns false if the hold has already expired or been released.
+     */
+    public boolean confirmHold(String holdId) {
+        expireHolds();
+        // Whoever removes the hold from the map owns it, so confirm, release and expiry never race
+        SeatHold hold = activeHolds.remove(holdId);
+        if (hold == null) {
+            return false;
         }
         
-        // Book the seats
-        booked.addAll(seats);
-        bookedSeats.put(showingId, booked);
+        Showing showing = hold.getShowing();
+        SeatChange sold;
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            sold = seatInventory.confirm(showing.getHandle(), hold.getSeats());
+            if (sold == null) {
+                return false;
+            }
+            
+            if (!journalBooking(showing, hold.getSeats())) {
+                seatInventory.release(showing.getHandle(), hold.getSeats());
+                return false;
+            }
+        }
+        fireSeatsSold(showing, sold);
+        return true;
+    }
+    
+    /**
+     * Releases a hold so the seats can be booked by someone else
+     */
+    public boolean releaseHold(String holdId) {
+        SeatHold hold = activeHolds.remove(holdId);
+        if (hold == null) {
+            return false;
+        }
         
+        seatInventory.releaseHold(hold.getShowing().getHandle(), hold.getSeats());
         return true;
     }
     
+    /**
+     * Gets an active hold, or null if it has expired, been confirmed or been released
+     */
+    public SeatHold getHold(String holdId) {
+        expireHolds();
+        return activeHolds.get(holdId);
+    }
+    
+    /**
+     * Gets the number of holds that are currently active
+     */
+    public int getActiveHoldsCount() {
+        expireHolds();
+        return activeHolds.size();
+    }
+    
+    /**
+     * Sets how long new holds last before they expire
+     */
+    public void setHoldDurationMillis(long holdMillis) {
+        this.holdMillis = holdMillis;
+    }
+    
+    /**
+     * Releases every hold whose deadline has passed. Called at the start of booking
+     * operations, so no timer thread is needed; a UI timer may also call it.
+     */
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        if (!holdTimer.isDue(now)) {
+            return;
+        }
+        
+        for (SeatHold hold : holdTimer.advance(now)) {
+            // Confirmed or released holds are no longer in the map and are skipped here
+            if (activeHolds.remove(hold.getId(), hold)) {
+                seatInventory.releaseHold(hold.getShowing().getHandle(), hold.getSeats());
+            }
+        }
+    }
+    
     /**
      * Cancels a booking
      */
     public boolean cancelBooking(int movieId, LocalDateTime showtime, List<String> seats) {
-        int showingId = generateShowingId(movieId, showtime);
+        return cancelBooking(getShowing(movieId, showtime), seats);
+    }
+    
+    /**
+     * Cancels booked seats for a showing. Returns false if none of the seats were sold,
+     * or if the cancellation could not be saved (the seats then stay sold).
+     */
+    public boolean cancelBooking(Showing showing, List<String> seats) {
+        SeatChange released;
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            released = seatInventory.release(showing.getHandle(), seats);
+            if (released.isEmpty()) {
+                return false;
+            }
+            
+            if (!journalCancellation(showing, seats)) {
+                seatInventory.resell(showing.getHandle(), released);
+                return false;
+            }
+        }
+        fireSeatsReleased(showing, released);
+        return true;
+    }
+    
+    /**
+     * Releases every seat of a showing at once: active holds, sold seats and blocked
+     * seats. The change is one journal record. Returns the number of seats freed.
+     */
+    public int releaseAllSeats(Showing showing) {
+        int freed = 0;
+        for (SeatHold hold : activeHolds.values()) {
+            if (hold.getShowing().equals(showing) && releaseHold(hold.getId())) {
+                freed += hold.getSeats().size();
+            }
+        }
         
-        if (!bookedSeats.containsKey(showingId)) {
-            return false;
+        SeatChange released;
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            freed += seatInventory.getBlocked(showing.getHandle()).length;
+            released = seatInventory.releaseAll(showing.getHandle());
+            freed += released.size();
+            
+            if (freed > 0 && journal != null) {
+                try {
+                    journal.logAllSeatsReleased(showing);
+                } catch (IOException e) {
+                    System.err.println("Failed to save seat reset: " + e.getMessage());
+                }
+            }
+        }
+        fireSeatsReleased(showing, released);
+        return freed;
+    }
+    
+    /**
+     * Blocks seats of a showing so they cannot be booked, e.g. for a private event.
+     * Seats that are already held or sold are skipped. Returns the seats blocked.
+     */
+    public List<String> blockSeats(Showing showing, List<String> seats) {
+        HallLayout layout = getHallLayout(showing);
+        return blockSeatIndices(showing, layout, toSeatIndices(layout, seats));
+    }
+    
+    /**
+     * Blocks every seat from one seat to another, inclusive, in seat order
+     * (e.g. "C3" to "C12"). Returns the seats blocked.
+     */
+    public List<String> blockSeatRange(Showing showing, String fromSeat, String toSeat) {
+        HallLayout layout = getHallLayout(showing);
+        int from = layout.toSeatIndex(fromSeat);
+        int to = layout.toSeatIndex(toSeat);
+        if (from < 0 || to < 0) {
+            return Collections.emptyList();
         }
         
-        List<String> booked = bookedSeats.get(showingId);
-        return booked.removeAll(seats);
+        int[] range = new int[Math.abs(to - from) + 1];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = Math.min(from, to) + i;
+        }
+        return blockSeatIndices(showing, layout, range);
     }
     
     /**
-     * Checks if seats are available
+     * Blocks every seat in a row (e.g. 'F'). Returns the seats blocked.
      */
-    public boolean areSeatsAvailable(int movieId, LocalDateTime showtime, List<String> seats) {
-        int showingId = generateShowingId(movieId, showtime);
-        List<String> booked = bookedSeats.getOrDefault(showingId, new ArrayList<>());
+    public List<String> blockRow(Showing showing, char row) {
+        HallLayout layout = getHallLayout(showing);
+        int rowIndex = Character.toUpperCase(row) - 'A';
+        List<Integer> seats = new ArrayList<>();
+        for (int index = 0; index < layout.getGridSize(); index++) {
+            if (layout.isSeat(index) && SeatCode.getRow(layout.getSeatCode(index)) == rowIndex) {
+                seats.add(index);
+            }
+        }
         
-        for (String seat : seats) {
-            if (booked.contains(seat)) {
-                return false; // At least one seat is already booked
+        int[] indices = new int[seats.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = seats.get(i);
+        }
+        return blockSeatIndices(showing, layout, indices);
+    }
+    
+    /**
+     * Unblocks seats of a showing. Returns the seats that were blocked.
+     */
+    public List<String> unblockSeats(Showing showing, List<String> seats) {
+        HallLayout layout = getHallLayout(showing);
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            List<String> unblocked = toSeatIds(layout,
+                    seatInventory.unblock(showing.getHandle(), toSeatIndices(layout, seats)));
+            if (!unblocked.isEmpty() && journal != null) {
+                try {
+                    journal.logSeatsUnblocked(showing, unblocked);
+                } catch (IOException e) {
+                    System.err.println("Failed to save unblocked seats: " + e.getMessage());
+                }
+            }
+            return unblocked;
+        }
+    }
+    
+    /**
+     * Gets the blocked seats of a showing in seat order
+     */
+    public List<String> getBlockedSeats(Showing showing) {
+        return toSeatIds(getHallLayout(showing), seatInventory.getBlocked(showing.getHandle()));
+    }
+    
+    /**
+     * Gives other showings the same blocked seats as the source showing, e.g. to repeat
+     * a block-out for every showing of the day. Seats already held or sold in a target
+     * are not blocked. Targets in a hall with a different layout are skipped.
+     * The change is one journal record. Returns the number of showings changed.
+     */
+    public int copyBlockedSeats(Showing source, List<Showing> targets) {
+        HallLayout layout = getHallLayout(source);
+        int[] blocked = seatInventory.getBlocked(source.getHandle());
+        int copied = 0;
+        for (Showing target : targets) {
+            if (!target.equals(source) && getHallLayout(target) == layout) {
+                seatInventory.setBlocked(target.getHandle(), blocked);
+                copied++;
             }
         }
         
-        return true;
+        if (copied > 0 && journal != null) {
+            try {
+                journal.logBlockedSeatsCopied(source, targets);
+            } catch (IOException e) {
+                System.err.println("Failed to save copied seat blocks: " + e.getMessage());
+            }
+        }
+        return copied;
+    }
+    
+    /**
+     * Checks if seats are available
+     */
+    public boolean areSeatsAvailable(int movieId, LocalDateTime showtime, List<String> seats) {
+        return areSeatsAvailable(getShowing(movieId, showtime), seats);
+    }
+    
+    /**
+     * Checks if seats are available for a showing
+     */
+    public boolean areSeatsAvailable(Showing showing, List<String> seats) {
+        expireHolds();
+        return seatInventory.areAvailable(showing.getHandle(), seats);
+    }
+    
+    /**
+     * Checks if seats of a showing are all sold, as opposed to free, held or blocked
+     */
+    public boolean areSeatsSold(Showing showing, List<String> seats) {
+        return seatInventory.areSold(showing.getHandle(), seats);
     }
     
     /**
      * Gets booked seats count for a movie showing
      */
     public int getBookedSeatsCount(int movieId, LocalDateTime showtime) {
-        int showingId = generateShowingId(movieId, showtime);
-        return bookedSeats.getOrDefault(showingId, new ArrayList<>()).size();
+        return getBookedSeatsCount(getShowing(movieId, showtime));
+    }
+    
+    /**
+     * Gets booked seats count for a showing
+     */
+    public int getBookedSeatsCount(Showing showing) {
+        return seatInventory.getBookedCount(showing.getHandle());
+    }
+    
+    /**
+     * Marks seats as sold without checking or journaling. Used when replaying saved data.
+     */
+    public void restoreBooking(Showing showing, List<String> seats) {
+        fireSeatsSold(showing, seatInventory.forceSell(showing.getHandle(), seats));
+    }
+    
+    /**
+     * Gets the sold seats of a showing with their prices (null if nothing was ever sold)
+     */
+    SeatChange getSoldSeats(Showing showing) {
+        return seatInventory.getSold(showing.getHandle());
+    }
+    
+    /**
+     * Replaces the sold seats of a showing with ones read from a snapshot
+     */
+    void restoreSoldSeats(Showing showing, int[] seats, int[] priceCents) {
+        // Tell listeners about the difference so their totals match the restored seats
+        SeatChange[] changes = seatInventory.restoreSold(showing.getHandle(), seats, priceCents);
+        fireSeatsReleased(showing, changes[0]);
+        fireSeatsSold(showing, changes[1]);
+    }
+    
+    /**
+     * Gets the blocked seats of a showing as grid indices
+     */
+    int[] getBlockedSeatIndices(Showing showing) {
+        return seatInventory.getBlocked(showing.getHandle());
+    }
+    
+    /**
+     * Replaces the blocked seats of a showing with ones read from a snapshot
+     */
+    void restoreBlockedSeats(Showing showing, int[] seats) {
+        seatInventory.setBlocked(showing.getHandle(), seats);
+    }
+    
+    /**
+     * Blocks seats given as grid indices and journals the seats that were blocked
+     */
+    private List<String> blockSeatIndices(Showing showing, HallLayout layout, int[] seats) {
+        expireHolds();
+        synchronized (seatInventory.getLock(showing.getHandle())) {
+            List<String> blocked = toSeatIds(layout, seatInventory.block(showing.getHandle(), seats));
+            if (!blocked.isEmpty() && journal != null) {
+                try {
+                    journal.logSeatsBlocked(showing, blocked);
+                } catch (IOException e) {
+                    System.err.println("Failed to save blocked seats: " + e.getMessage());
+                }
+            }
+            return blocked;
+        }
+    }
+    
+    private static int[] toSeatIndices(HallLayout layout, List<String> seats) {
+        int[] indices = new int[seats.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = layout.toSeatIndex(seats.get(i));
+        }
+        return indices;
+    }
+    
+    private static List<String> toSeatIds(HallLayout layout, int[] seats) {
+        List<String> ids = new ArrayList<>(seats.length);
+        for (int index : seats) {
+            ids.add(layout.getSeatId(index));
+        }
+        return ids;
     }
     
     /**
-     * Gets total seats count
+     * Gets the number of seats in a standard hall
      */
     public int getTotalSeatsCount() {
-        return generateAllSeats().size();
+        return HallLayoutRegistry.STANDARD_HALL.getCapacity();
+    }
+    
+    /**
+     * Gets the number of seats in the hall a showing is in
+     */
+    public int getTotalSeatsCount(Showing showing) {
+        return seatInventory.getCapacity(showing.getHandle());
     }
     
     /**
      * Gets occupancy percentage for a movie showing
      */
     public double getOccupancyPercentage(int movieId, LocalDateTime showtime) {
-        int booked = getBookedSeatsCount(movieId, showtime);
-        int total = getTotalSeatsCount();
+        return getOccupancyPercentage(getShowing(movieId, showtime));
+    }
+    
+    /**
+     * Gets occupancy percentage for a showing
+     */
+    public double getOccupancyPercentage(Showing showing) {
+        int booked = getBookedSeatsCount(showing);
+        int total = getTotalSeatsCount(showing);
         
         return (double) booked / total * 100;
     }
     
     /**
-     * Generates a unique identifier for a movie showing
+     * Writes a sale to the journal. Returns false if it could not be saved.
      */
-    private int generateShowingId(int movieId, LocalDateTime showtime) {
-        return movieId * 1000000 + 
-               showtime.getYear() * 10000 + 
-               showtime.getMonthValue() * 100 + 
-               showtime.getDayOfMonth();
+    private boolean journalBooking(Showing showing, List<String> seats) {
+        if (journal == null) {
+            return true;
+        }
+        
+        try {
+            journal.logBooking(showing, seats);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to save booking: " + e.getMessage());
+            return false;
+        }
     }
     
     /**
-     * Generates all possible seats (e.g., A1, A2, B1, B2, etc.)
+     * Writes a cancellation to the journal. Returns false if it could not be saved.
      */
-    private List<String> generateAllSeats() {
-        List<String> seats = new ArrayList<>();
-        
-        // Generate standard seats (rows A-F, columns 1-10)
-        for (char row = 'A'; row <= 'F'; row++) {
-            for (int col = 1; col <= 10; col++) {
-                seats.add(row + String.valueOf(col));
-            }
+    private boolean journalCancellation(Showing showing, List<String> seats) {
+        if (journal == null) {
+            return true;
         }
         
-        // Generate deluxe seats (rows G-J, columns 1-10)
-        for (char row = 'G'; row <= 'J'; row++) {
-            for (int col = 1; col <= 10; col++) {
-                seats.add(row + String.valueOf(col));
-            }
+        try {
+            journal.logCancellation(showing, seats);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to save cancellation: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void fireSeatsSold(Showing showing, SeatChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        for (BookingListener listener : listeners) {
+            listener.seatsSold(showing, change);
+        }
+    }
+    
+    private void fireSeatsReleased(Showing showing, SeatChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        for (BookingListener listener : listeners) {
+            listener.seatsReleased(showing, change);
         }
-        
-        return seats;
     }
 }
\ No newline at end of file
@@ -0,0 +1,535 @@
+package controller;
+
+import model.Movie;
+import model.Showing;
+import model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of every change that has to survive a restart:
+ * bookings, cancellations, seat block-outs, movie edits and user registrations.
+ * A bulk seat change (a whole row blocked, every seat of a showing released) is
+ * one record, however many seats it touches.
+ *
+ * Each record is written as [length][type][payload][crc32]. A record that was
+ * only partly written when the application crashed fails its length or CRC
+ * check, and replay stops (and truncates the file) right before it.
+ *
+ * Appends use group commit: a caller only returns once its record is on disk,
+ * but a single fsync covers every record written while the previous fsync was
+ * running. Under load, many bookings share one fsync instead of paying for one each.
+ */
+public class BookingJournal {
+    public static final byte BOOKING = 1;
+    public static final byte CANCELLATION = 2;
+    public static final byte MOVIE_SAVED = 3;
+    public static final byte MOVIE_REMOVED = 4;
+    public static final byte USER_SAVED = 5;
+    public static final byte USER_REMOVED = 6;
+    public static final byte SEATS_BLOCKED = 7;
+    public static final byte SEATS_UNBLOCKED = 8;
+    public static final byte ALL_SEATS_RELEASED = 9;
+    public static final byte BLOCKED_SEATS_COPIED = 10;
+
+    private static final int HEADER_BYTES = 4;  // Record length
+    private static final int TRAILER_BYTES = 4; // CRC32
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    private long writtenPosition;           // Guarded by writeLock
+    private volatile long durablePosition;  // Everything before this offset has been forced to disk
+
+    /**
+     * Receives journal records during replay
+     */
+    public interface Listener {
+        void onBooking(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats);
+
+        void onCancellation(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats);
+
+        void onMovieSaved(Movie movie);
+
+        void onMovieRemoved(int movieId);
+
+        void onUserSaved(User user);
+
+        void onUserRemoved(String username);
+
+        void onSeatsBlocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats);
+
+        void onSeatsUnblocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats);
+
+        void onAllSeatsReleased(int movieId, int cinemaId, LocalDateTime showtime);
+
+        /**
+         * The showings are keys only (no handle); look them up to use them
+         */
+        void onBlockedSeatsCopied(Showing source, List<Showing> targets);
+    }
+
+    private BookingJournal(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.writtenPosition = channel.size();
+        this.durablePosition = writtenPosition;
+    }
+
+    /**
+     * Opens (or creates) a journal file for appending
+     */
+    public static BookingJournal open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new BookingJournal(file, channel);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the offset just past the last record written
+     */
+    public long getPosition() {
+        synchronized (writeLock) {
+            return writtenPosition;
+        }
+    }
+
+    /**
+     * Records seats sold for a showing
+     */
+    public void logBooking(Showing showing, List<String> seats) throws IOException {
+        append(BOOKING, encodeSeats(showing, seats));
+    }
+
+    /**
+     * Records seats released for a showing
+     */
+    public void logCancellation(Showing showing, List<String> seats) throws IOException {
+        append(CANCELLATION, encodeSeats(showing, seats));
+    }
+
+    /**
+     * Records seats blocked for a showing
+     */
+    public void logSeatsBlocked(Showing showing, List<String> seats) throws IOException {
+        append(SEATS_BLOCKED, encodeSeats(showing, seats));
+    }
+
+    /**
+     * Records seats unblocked for a showing
+     */
+    public void logSeatsUnblocked(Showing showing, List<String> seats) throws IOException {
+        append(SEATS_UNBLOCKED, encodeSeats(showing, seats));
+    }
+
+    /**
+     * Records that every sold and blocked seat of a showing was released
+     */
+    public void logAllSeatsReleased(Showing showing) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeShowing(out, showing);
+        out.flush();
+        append(ALL_SEATS_RELEASED, bytes.toByteArray());
+    }
+
+    /**
+     * Records that the blocked seats of one showing were copied to others
+     */
+    public void logBlockedSeatsCopied(Showing source, List<Showing> targets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + targets.size() * 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeShowing(out, source);
+        out.writeInt(targets.size());
+        for (Showing target : targets) {
+            writeShowing(out, target);
+        }
+        out.flush();
+        append(BLOCKED_SEATS_COPIED, bytes.toByteArray());
+    }
+
+    /**
+     * Records a movie that was added or edited
+     */
+    public void logMovieSaved(Movie movie) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeMovie(out, movie);
+        out.flush();
+        append(MOVIE_SAVED, bytes.toByteArray());
+    }
+
+    /**
+     * Records a movie that was removed
+     */
+    public void logMovieRemoved(int movieId) throws IOException {
+        append(MOVIE_REMOVED, ByteBuffer.allocate(4).putInt(movieId).array());
+    }
+
+    /**
+     * Records a user that was registered or edited
+     */
+    public void logUserSaved(User user) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeUser(out, user);
+        out.flush();
+        append(USER_SAVED, bytes.toByteArray());
+    }
+
+    /**
+     * Records a user that was removed
+     */
+    public void logUserRemoved(String username) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(username);
+        out.flush();
+        append(USER_REMOVED, bytes.toByteArray());
+    }
+
+    /**
+     * Replays all records from the given offset and returns the number of records read.
+     * A torn or corrupt record at the end of the file is cut off.
+     */
+    public int replay(long fromPosition, Listener listener) throws IOException {
+        synchronized (writeLock) {
+            long size = channel.size();
+            long position = Math.min(fromPosition, size);
+            int count = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+            long next;
+            while ((next = readRecord(position, size, header, listener)) >= 0) {
+                position = next;
+                count++;
+            }
+
+            if (position < size) {
+                System.out.println("Journal " + file + ": discarding " + (size - position) + " bytes of incomplete data");
+                channel.truncate(position);
+            }
+            writtenPosition = position;
+            durablePosition = Math.min(durablePosition, position);
+            return count;
+        }
+    }
+
+    /**
+     * Reads every record that is on disk, e.g. to export the booking history, without
+     * holding up bookings: records are never changed once they are durable, so no lock
+     * is taken. Records are passed on one at a time, so memory use does not grow with
+     * the journal. Returns the number of records read.
+     */
+    public int scan(Listener listener) throws IOException {
+        long end = durablePosition;
+        long position = 0;
+        int count = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while ((position = readRecord(position, end, header, listener)) >= 0) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Forces everything written so far to disk and closes the file
+     */
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    /**
+     * Appends one record and waits until it is durable
+     */
+    private void append(byte type, byte[] payload) throws IOException {
+        int length = 1 + payload.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length + TRAILER_BYTES);
+        record.putInt(length);
+        record.put(type);
+        record.put(payload);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, length);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        long end;
+        synchronized (writeLock) {
+            channel.position(writtenPosition);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            writtenPosition += record.limit();
+            end = writtenPosition;
+        }
+
+        awaitDurable(end);
+    }
+
+    /**
+     * Waits until the journal is on disk up to the given offset. The thread that gets
+     * the force lock syncs everything written so far, on behalf of all waiting threads.
+     */
+    private void awaitDurable(long position) throws IOException {
+        if (durablePosition >= position) {
+            return;
+        }
+
+        synchronized (forceLock) {
+            if (durablePosition >= position) {
+                return; // Someone else's fsync already covered this record
+            }
+
+            long target;
+            synchronized (writeLock) {
+                target = writtenPosition;
+            }
+            channel.force(false);
+            durablePosition = target;
+        }
+    }
+
+    /**
+     * Reads the record at a position and passes it to the listener. Returns the position
+     * of the next record, or -1 if there is no complete, intact record before end.
+     */
+    private long readRecord(long position, long end, ByteBuffer header, Listener listener) throws IOException {
+        if (position + HEADER_BYTES > end) {
+            return -1;
+        }
+
+        header.clear();
+        readFully(header, position);
+        int length = header.getInt(0);
+        if (length < 1 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length + TRAILER_BYTES > end) {
+            return -1;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(length + TRAILER_BYTES);
+        readFully(body, position + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+        if ((int) crc.getValue() != body.getInt(length)) {
+            return -1;
+        }
+
+        dispatch(body.array(), length, listener);
+        return position + HEADER_BYTES + length + TRAILER_BYTES;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of journal " + file);
+            }
+        }
+    }
+
+    /**
+     * Decodes one record and passes it to the listener
+     */
+    private void dispatch(byte[] record, int length, Listener listener) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, 1, length - 1));
+        switch (record[0]) {
+            case BOOKING:
+            case CANCELLATION:
+            case SEATS_BLOCKED:
+            case SEATS_UNBLOCKED: {
+                int movieId = in.readInt();
+                int cinemaId = in.readInt();
+                LocalDateTime showtime = readDateTime(in);
+                List<String> seats = readSeats(in);
+                if (record[0] == BOOKING) {
+                    listener.onBooking(movieId, cinemaId, showtime, seats);
+                } else if (record[0] == CANCELLATION) {
+                    listener.onCancellation(movieId, cinemaId, showtime, seats);
+                } else if (record[0] == SEATS_BLOCKED) {
+                    listener.onSeatsBlocked(movieId, cinemaId, showtime, seats);
+                } else {
+                    listener.onSeatsUnblocked(movieId, cinemaId, showtime, seats);
+                }
+                break;
+            }
+            case ALL_SEATS_RELEASED: {
+                Showing showing = readShowing(in);
+                listener.onAllSeatsReleased(showing.getMovieId(), showing.getCinemaId(), showing.getStartTime());
+                break;
+            }
+            case BLOCKED_SEATS_COPIED: {
+                Showing source = readShowing(in);
+                int targetCount = in.readInt();
+                List<Showing> targets = new ArrayList<>(targetCount);
+                for (int i = 0; i < targetCount; i++) {
+                    targets.add(readShowing(in));
+                }
+                listener.onBlockedSeatsCopied(source, targets);
+                break;
+            }
+            case MOVIE_SAVED: {
+                Movie movie = readMovie(in);
+                if (in.available() > 0) { // Older records end after the showtimes
+                    readCinemas(in, movie);
+                }
+                listener.onMovieSaved(movie);
+                break;
+            }
+            case MOVIE_REMOVED:
+                listener.onMovieRemoved(in.readInt());
+                break;
+            case USER_SAVED:
+                listener.onUserSaved(readUser(in));
+                break;
+            case USER_REMOVED:
+                listener.onUserRemoved(in.readUTF());
+                break;
+            default:
+                System.out.println("Journal " + file + ": skipping unknown record type " + record[0]);
+        }
+    }
+
+    private static byte[] encodeSeats(Showing showing, List<String> seats) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + seats.size() * 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeShowing(out, showing);
+        writeSeats(out, seats);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static void writeShowing(DataOutputStream out, Showing showing) throws IOException {
+        out.writeInt(showing.getMovieId());
+        out.writeInt(showing.getCinemaId());
+        writeDateTime(out, showing.getStartTime());
+    }
+
+    /**
+     * Reads a showing key; the showing has no handle until it is looked up in the registry
+     */
+    static Showing readShowing(DataInputStream in) throws IOException {
+        return new Showing(-1, in.readInt(), in.readInt(), readDateTime(in));
+    }
+
+    static void writeSeats(DataOutputStream out, List<String> seats) throws IOException {
+        out.writeShort(seats.size());
+        for (String seat : seats) {
+            out.writeUTF(seat);
+        }
+    }
+
+    static List<String> readSeats(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> seats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            seats.add(in.readUTF());
+        }
+        return seats;
+    }
+
+    static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime == null ? Long.MIN_VALUE : dateTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    static void writeMovie(DataOutputStream out, Movie movie) throws IOException {
+        out.writeInt(movie.getId());
+        writeString(out, movie.getTitle());
+        writeString(out, movie.getDescription());
+        writeString(out, movie.getGenre());
+        out.writeInt(movie.getDurationMinutes());
+        writeString(out, movie.getDirector());
+        writeString(out, movie.getCast());
+        writeString(out, movie.getPoster());
+        writeString(out, movie.getTrailer());
+        writeString(out, movie.getRating());
+        out.writeInt(movie.getShowtimes().size());
+        for (LocalDateTime showtime : movie.getShowtimes()) {
+            writeDateTime(out, showtime);
+        }
+        // Last, so movie records written before movies had cinemas can still be read
+        out.writeInt(movie.getCinemas().size());
+        for (String cinema : movie.getCinemas()) {
+            writeString(out, cinema);
+        }
+    }
+
+    static Movie readMovie(DataInputStream in) throws IOException {
+        Movie movie = new Movie(in.readInt(), readString(in), readString(in), readString(in), 0);
+        movie.setDurationMinutes(in.readInt());
+        movie.setDirector(readString(in));
+        movie.setCast(readString(in));
+        movie.setPoster(readString(in));
+        movie.setTrailer(readString(in));
+        movie.setRating(readString(in));
+        int showtimeCount = in.readInt();
+        for (int i = 0; i < showtimeCount; i++) {
+            movie.addShowtime(readDateTime(in));
+        }
+        return movie;
+    }
+
+    /**
+     * Reads the cinemas that follow a movie read with readMovie
+     */
+    static void readCinemas(DataInputStream in, Movie movie) throws IOException {
+        int cinemaCount = in.readInt();
+        for (int i = 0; i < cinemaCount; i++) {
+            movie.addCinema(readString(in));
+        }
+    }
+
+    static void writeUser(DataOutputStream out, User user) throws IOException {
+        writeString(out, user.getUsername());
+        writeString(out, user.getPasswordHash());
+        writeString(out, user.getEmail());
+        writeString(out, user.getFullName());
+        writeString(out, user.getPhoneNumber());
+        out.writeBoolean(user.isAdmin());
+        writeDateTime(out, user.getRegistrationDate());
+    }
+
+    static User readUser(DataInputStream in) throws IOException {
+        User user = new User(readString(in), readString(in), readString(in), readString(in));
+        user.setPhoneNumber(readString(in));
+        user.setAdmin(in.readBoolean());
+        user.setRegistrationDate(readDateTime(in));
+        return user;
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
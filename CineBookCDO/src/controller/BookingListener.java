@@ -0,0 +1,21 @@
+package controller;
+
+import model.Showing;
+
+/**
+ * Notified by the BookingController whenever seats are sold or released.
+ * Each change lists the seats as bit indices into the showing's seat map
+ * (row * columns + column) together with the price each seat was sold at.
+ * Listeners are called on the thread that made the change and should return quickly.
+ */
+public interface BookingListener {
+    /**
+     * Called after seats have been sold for a showing
+     */
+    void seatsSold(Showing showing, SeatChange change);
+
+    /**
+     * Called after sold seats have been released (cancelled) for a showing
+     */
+    void seatsReleased(Showing showing, SeatChange change);
+}
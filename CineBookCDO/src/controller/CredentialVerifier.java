@@ -0,0 +1,145 @@
+package controller;
+
+import model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Checks user passwords off the Swing thread.
+ *
+ * Password checks run on a small bounded pool, so a burst of logins queues up
+ * instead of starting a thread each; when the queue is full the returned future
+ * fails straight away. Users whose password was checked recently are remembered
+ * for a few minutes by a keyed digest of the password, so repeating an action
+ * that needs the password does not pay for PBKDF2 again. The cache never holds
+ * the password itself, and an entry is dropped as soon as the stored hash changes.
+ */
+public class CredentialVerifier {
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long CACHE_TTL_MILLIS = 5 * 60 * 1000; // 5 minutes
+    private static final int CACHE_CAPACITY = 1024;
+
+    private final PasswordHasher hasher;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, VerifiedCredential> recentlyVerified; // Map<username, credential>, LRU order
+    private final SecretKeySpec digestKey; // Random per run, so digests are useless outside this process
+
+    public CredentialVerifier(PasswordHasher hasher) {
+        this.hasher = hasher;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "password-check-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.recentlyVerified = new LinkedHashMap<String, VerifiedCredential>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedCredential> eldest) {
+                return size() > CACHE_CAPACITY;
+            }
+        };
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    public PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Checks a user's password on the calling thread
+     */
+    public boolean verify(User user, String password) {
+        String stored = user.getPasswordHash();
+        if (password == null || stored == null) {
+            return false;
+        }
+
+        byte[] digest = digest(password);
+        long now = System.currentTimeMillis();
+        synchronized (recentlyVerified) {
+            VerifiedCredential cached = recentlyVerified.get(user.getUsername());
+            if (cached != null && cached.expiresAtMillis > now && cached.passwordHash.equals(stored)
+                    && MessageDigest.isEqual(cached.passwordDigest, digest)) {
+                return true;
+            }
+        }
+
+        if (!hasher.verify(password, stored)) {
+            return false;
+        }
+
+        synchronized (recentlyVerified) {
+            recentlyVerified.put(user.getUsername(), new VerifiedCredential(stored, digest, now + CACHE_TTL_MILLIS));
+        }
+        return true;
+    }
+
+    /**
+     * Runs a task that checks passwords on the verification pool
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> busy = new CompletableFuture<>();
+            busy.completeExceptionally(e);
+            return busy;
+        }
+    }
+
+    /**
+     * Forgets that a user's password was checked, e.g. after it changed
+     */
+    public void invalidate(String username) {
+        synchronized (recentlyVerified) {
+            recentlyVerified.remove(username);
+        }
+    }
+
+    private byte[] digest(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(digestKey);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * A password check that succeeded recently
+     */
+    private static class VerifiedCredential {
+        final String passwordHash;
+        final byte[] passwordDigest;
+        final long expiresAtMillis;
+
+        VerifiedCredential(String passwordHash, byte[] passwordDigest, long expiresAtMillis) {
+            this.passwordHash = passwordHash;
+            this.passwordDigest = passwordDigest;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
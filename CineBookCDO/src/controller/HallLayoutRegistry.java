@@ -0,0 +1,99 @@
+package controller;
+
+import model.Cinema;
+import model.HallLayout;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows the seat layout of every cinema hall.
+ *
+ * Layouts are immutable and shared: all regular halls with the same number of seats
+ * use one layout instance, and every showing in a hall uses its hall's layout.
+ * Cinemas without a registered layout (including showtimes not assigned to a
+ * cinema yet) use the standard 10 x 10 hall.
+ *
+ * A hall's layout must not change once seats have been sold for it, because sold
+ * seats are remembered by their position in the layout.
+ */
+public class HallLayoutRegistry {
+    public static final HallLayout STANDARD_HALL = HallLayout.rectangular("Standard", 10, 10);
+
+    private static final int REGULAR_ROW_WIDTH = 10;
+
+    private static final HallLayout IMAX_HALL = HallLayout.fromPlan("IMAX",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "SSSS.SSSSSSSSSSSSSS.SSSS",
+            "........................",
+            "DDDD.DDDDPPPPPPDDDD.DDDD",
+            "DDDD.DDDDPPPPPPDDDD.DDDD",
+            "DDDD.DDDDPPPPPPDDDD.DDDD",
+            "DDDD.DDDDDDDDDDDDDD.DDDD",
+            "DDDD.DDDDDDDDDDDDDD.DDDD");
+
+    private static final HallLayout FOUR_DX_HALL = HallLayout.fromPlan("4DX",
+            "PPPPPP..PPPPPP",
+            "PPPPPP..PPPPPP",
+            "PPPPPP..PPPPPP",
+            "PPPPPP..PPPPPP",
+            "PPPPPP..PPPPPP",
+            "PPPPPP..PPPPPP");
+
+    private final Map<Integer, HallLayout> layoutsByCinema;
+    private final Map<String, HallLayout> layoutsByType; // Keys are lower case cinema types
+    private final Map<Integer, HallLayout> regularLayoutsBySize;
+
+    public HallLayoutRegistry() {
+        this.layoutsByCinema = new ConcurrentHashMap<>();
+        this.layoutsByType = new ConcurrentHashMap<>();
+        this.regularLayoutsBySize = new ConcurrentHashMap<>();
+
+        layoutsByType.put("imax", IMAX_HALL);
+        layoutsByType.put("4dx", FOUR_DX_HALL);
+        regularLayoutsBySize.put(STANDARD_HALL.getCapacity(), STANDARD_HALL);
+    }
+
+    /**
+     * Gets the layout of a cinema's hall
+     */
+    public HallLayout getLayout(int cinemaId) {
+        return layoutsByCinema.getOrDefault(cinemaId, STANDARD_HALL);
+    }
+
+    /**
+     * Sets the layout of a cinema's hall
+     */
+    public void setLayout(int cinemaId, HallLayout layout) {
+        layoutsByCinema.put(cinemaId, layout);
+    }
+
+    /**
+     * Sets the layout used for cinemas of a type (e.g., "IMAX") registered from now on
+     */
+    public void setLayoutForType(String cinemaType, HallLayout layout) {
+        layoutsByType.put(cinemaType.toLowerCase(Locale.ROOT), layout);
+    }
+
+    /**
+     * Picks and remembers the layout for a cinema: the layout for its type if there is
+     * one, otherwise a plain hall with the cinema's number of seats
+     */
+    public HallLayout registerCinema(Cinema cinema) {
+        HallLayout layout = cinema.getType() == null ? null
+                : layoutsByType.get(cinema.getType().toLowerCase(Locale.ROOT));
+        if (layout == null) {
+            int seats = cinema.getTotalSeats() > 0 ? cinema.getTotalSeats() : STANDARD_HALL.getCapacity();
+            layout = regularLayoutsBySize.computeIfAbsent(seats,
+                    count -> HallLayout.forSeatCount("Regular " + count, count, REGULAR_ROW_WIDTH));
+        }
+
+        layoutsByCinema.put(cinema.getId(), layout);
+        return layout;
+    }
+}
@@ -0,0 +1,105 @@
+package controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel used to expire seat holds.
+ *
+ * Time is cut into ticks and every hold is dropped into the slot for its
+ * deadline tick (deadline modulo wheel size). Advancing the clock only visits
+ * the slots for the ticks that passed, so each hold costs O(1) to add and
+ * O(1) to expire no matter how many holds are outstanding. Holds further away
+ * than one turn of the wheel stay in their slot until their deadline comes round.
+ *
+ * No thread is started here; callers advance the wheel as they go.
+ */
+public class HoldTimer<T> {
+    private final long tickMillis;
+    private final ArrayDeque<Entry<T>>[] slots;
+    private final int mask;
+    private volatile long currentTick;
+
+    public HoldTimer(long tickMillis, int wheelSize, long startMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+
+        this.tickMillis = tickMillis;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayDeque<Entry<T>>[] slots = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.slots = slots;
+        this.mask = wheelSize - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an item to expire at the given time
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        // Round up so an item never expires early, and never into a tick that has already passed
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        slots[(int) (deadlineTick & mask)].add(new Entry<>(item, deadlineTick));
+    }
+
+    /**
+     * Checks cheaply (without locking) whether advancing to this time would visit any slot
+     */
+    public boolean isDue(long nowMillis) {
+        return nowMillis / tickMillis > currentTick;
+    }
+
+    /**
+     * Moves the wheel forward to the given time and returns every item whose deadline has passed
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        if (nowTick <= currentTick) {
+            return expired;
+        }
+
+        // After a long pause every slot is due, so visit each one once instead of every missed tick
+        long ticksToVisit = Math.min(nowTick - currentTick, slots.length);
+        for (long tick = nowTick - ticksToVisit + 1; tick <= nowTick; tick++) {
+            Iterator<Entry<T>> it = slots[(int) (tick & mask)].iterator();
+            while (it.hasNext()) {
+                Entry<T> entry = it.next();
+                if (entry.deadlineTick <= nowTick) {
+                    expired.add(entry.item);
+                    it.remove();
+                }
+            }
+        }
+
+        currentTick = nowTick;
+        return expired;
+    }
+
+    /**
+     * Gets the number of items still waiting on the wheel (including ones that
+     * were confirmed or released and will simply be ignored when they fire)
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (ArrayDeque<Entry<T>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private static class Entry<T> {
+        final T item;
+        final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package controller;
+
+import model.Movie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The movie catalog, published as an immutable snapshot: the list of movies in
+ * catalog order plus a hash index by id.
+ *
+ * Readers take the current snapshot from a volatile field, so they never lock and
+ * never copy; the list they get does not change under them. Writers build a new
+ * snapshot and swap it in (copy on write). Edits are rare next to reads, so the
+ * O(movies) copy per edit is a good trade.
+ */
+public class MovieCatalog {
+    private volatile Snapshot snapshot;
+
+    public MovieCatalog() {
+        this.snapshot = new Snapshot(new ArrayList<>());
+    }
+
+    /**
+     * Gets all movies in catalog order. The list is read-only and is not copied.
+     */
+    public List<Movie> getAll() {
+        return snapshot.movies;
+    }
+
+    /**
+     * Gets a movie by id, or null if there is none
+     */
+    public Movie get(int id) {
+        return snapshot.moviesById.get(id);
+    }
+
+    public int size() {
+        return snapshot.movies.size();
+    }
+
+    /**
+     * Adds a movie, or replaces the movie with the same id in place.
+     * Returns true if a movie was replaced.
+     */
+    public synchronized boolean put(Movie movie) {
+        List<Movie> movies = new ArrayList<>(snapshot.movies);
+        boolean replaced = false;
+        for (int i = 0; i < movies.size(); i++) {
+            if (movies.get(i).getId() == movie.getId()) {
+                movies.set(i, movie);
+                replaced = true;
+                break;
+            }
+        }
+        if (!replaced) {
+            movies.add(movie);
+        }
+        snapshot = new Snapshot(movies);
+        return replaced;
+    }
+
+    /**
+     * Replaces the movie with the same id. Returns false (and changes nothing) if there is none.
+     */
+    public synchronized boolean replace(Movie movie) {
+        if (get(movie.getId()) == null) {
+            return false;
+        }
+        put(movie);
+        return true;
+    }
+
+    /**
+     * Removes a movie and returns it, or null if there was none
+     */
+    public synchronized Movie remove(int id) {
+        Movie removed = get(id);
+        if (removed == null) {
+            return null;
+        }
+
+        List<Movie> movies = new ArrayList<>(snapshot.movies);
+        movies.removeIf(movie -> movie.getId() == id);
+        snapshot = new Snapshot(movies);
+        return removed;
+    }
+
+    /**
+     * Replaces the whole catalog
+     */
+    public synchronized void replaceAll(List<Movie> movies) {
+        snapshot = new Snapshot(new ArrayList<>(movies));
+    }
+
+    /**
+     * One published version of the catalog. Never changed after it is built.
+     */
+    private static class Snapshot {
+        final List<Movie> movies;
+        final Map<Integer, Movie> moviesById;
+
+        Snapshot(List<Movie> movies) {
+            this.movies = Collections.unmodifiableList(movies);
+            this.moviesById = new HashMap<>(movies.size() * 2);
+            for (Movie movie : movies) {
+                moviesById.put(movie.getId(), movie);
+            }
+        }
+    }
+}
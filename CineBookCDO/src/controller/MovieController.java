@@ -1,20 +1,52 @@
 package controller;
 
+import model.Cinema;
 import model.Movie;
+import model.Showing;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Controller class for movie-related operations
+ * Controller class for movie-related operations.
+ * Reads go to the catalog's published snapshot without locking; edits are
+ * synchronized so the catalog, the search index and the schedule change together.
+ * Each showtime of a movie is scheduled once in every cinema the movie plays in.
  */
 public class MovieController {
-    private List<Movie> movies;
+    private final MovieCatalog movies;
+    private final MovieSearchIndex searchIndex;
+    private final ShowingRegistry showingRegistry;
+    private final ShowtimeSchedule schedule;
+    private final Map<Integer, Cinema> cinemas; // Map<cinemaId, cinema>; fixed after construction
+    private volatile int longestDurationMinutes; // Never lowered, so "now showing" never misses a movie
+    private volatile long version; // Goes up after every edit; only changed while synchronized
+    private BookingJournal journal; // Null when changes are not persisted
     
     public MovieController() {
-        this.movies = new ArrayList<>();
+        this.movies = new MovieCatalog();
+        this.searchIndex = new MovieSearchIndex();
+        this.showingRegistry = new ShowingRegistry();
+        this.schedule = new ShowtimeSchedule();
+        this.cinemas = new LinkedHashMap<>();
+        initializeCinemas();
         initializeMovies();
+        searchIndex.rebuild(movies.getAll());
+        loadSchedule(movies.getAll());
+    }
+    
+    /**
+     * Initializes the cinemas
+     */
+    private void initializeCinemas() {
+        cinemas.put(1, new Cinema(1, "Cinema 1", "Ground Floor", 100));
+        cinemas.put(2, new Cinema(2, "Cinema 2", "Ground Floor", 242, "IMAX"));
+        cinemas.put(3, new Cinema(3, "Cinema 3", "Second Floor", 120));
     }
     
     /**
@@ -49,6 +81,11 @@ public class MovieController {
                 "https://www.youtube.com/watch?v=5xH0HfJHsaY", 
                 "R");
         
+        // Add cinemas
+        movie1.addCinema("Cinema 2");
+        movie2.addCinema("Cinema 1");
+        movie3.addCinema("Cinema 3");
+        
         // Add showtimes
         LocalDateTime now = LocalDateTime.now();
         
@@ -67,91 +104,281 @@ public class MovieController {
         movie3.addShowtime(now.plusDays(1).withHour(18).withMinute(0));
         movie3.addShowtime(now.plusDays(1).withHour(21).withMinute(0));
         
-        // Add movies to list
-        movies.add(movie1);
-        movies.add(movie2);
-        movies.add(movie3);
+        // Add movies to the catalog
+        movies.put(movie1);
+        movies.put(movie2);
+        movies.put(movie3);
     }
     
     /**
-     * Gets all movies
+     * Sets the journal that movie edits are recorded in (null to stop recording)
+     */
+    public void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Gets all movies. The list is a read-only snapshot shared with other callers, so it is not copied.
      */
     public List<Movie> getAllMovies() {
-        return new ArrayList<>(movies);
+        return movies.getAll();
+    }
+    
+    /**
+     * Gets the number of movies
+     */
+    public int getMovieCount() {
+        return movies.size();
     }
     
     /**
      * Gets a movie by ID
      */
     public Movie getMovieById(int id) {
-        for (Movie movie : movies) {
-            if (movie.getId() == id) {
-                return movie;
-            }
-        }
-        return null;
+        return movies.get(id);
     }
     
     /**
      * Adds a new movie
      */
-    public void addMovie(Movie movie) {
-        movies.add(movie);
+    public synchronized void addMovie(Movie movie) {
+        movies.put(movie);
+        searchIndex.add(movie);
+        scheduleMovie(movie);
+        journalMovieSaved(movie);
+        version++;
     }
     
     /**
      * Updates a movie
      */
-    public boolean updateMovie(Movie updatedMovie) {
-        for (int i = 0; i < movies.size(); i++) {
-            if (movies.get(i).getId() == updatedMovie.getId()) {
-                movies.set(i, updatedMovie);
-                return true;
-            }
+    public synchronized boolean updateMovie(Movie updatedMovie) {
+        if (!movies.replace(updatedMovie)) {
+            return false;
         }
-        return false;
+        searchIndex.add(updatedMovie);
+        scheduleMovie(updatedMovie);
+        journalMovieSaved(updatedMovie);
+        version++;
+        return true;
     }
     
     /**
      * Removes a movie
      */
-    public boolean removeMovie(int id) {
-        for (int i = 0; i < movies.size(); i++) {
-            if (movies.get(i).getId() == id) {
-                movies.remove(i);
-                return true;
+    public synchronized boolean removeMovie(int id) {
+        if (movies.remove(id) == null) {
+            return false;
+        }
+        searchIndex.remove(id);
+        schedule.removeMovie(id);
+        version++;
+        
+        if (journal != null) {
+            try {
+                journal.logMovieRemoved(id);
+            } catch (IOException e) {
+                System.err.println("Failed to save movie removal: " + e.getMessage());
             }
         }
-        return false;
+        return true;
     }
     
     /**
-     * Gets movies by genre
+     * Adds or replaces a movie restored from saved data, without journaling it again
      */
-    public List<Movie> getMoviesByGenre(String genre) {
-        List<Movie> filteredMovies = new ArrayList<>();
-        for (Movie movie : movies) {
-            if (movie.getGenre().contains(genre)) {
-                filteredMovies.add(movie);
+    public synchronized void restoreMovie(Movie movie) {
+        movies.put(movie);
+        searchIndex.add(movie);
+        scheduleMovie(movie);
+        version++;
+    }
+    
+    /**
+     * Replaces the whole catalog with movies restored from a snapshot
+     */
+    public synchronized void restoreMovies(List<Movie> restoredMovies) {
+        movies.replaceAll(restoredMovies);
+        searchIndex.rebuild(restoredMovies);
+        schedule.clear();
+        loadSchedule(restoredMovies);
+        version++;
+    }
+    
+    /**
+     * Gets a number that goes up after every movie edit, so results built from the
+     * catalog or the schedule can tell when they are out of date
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Gets all cinemas, in id order
+     */
+    public List<Cinema> getAllCinemas() {
+        return Collections.unmodifiableList(new ArrayList<>(cinemas.values()));
+    }
+    
+    /**
+     * Gets a cinema by id, or null if there is none
+     */
+    public Cinema getCinemaById(int id) {
+        return cinemas.get(id);
+    }
+    
+    /**
+     * Gets a cinema by name, or null if there is none
+     */
+    public Cinema getCinemaByName(String name) {
+        for (Cinema cinema : cinemas.values()) {
+            if (cinema.getName().equals(name)) {
+                return cinema;
             }
         }
-        return filteredMovies;
+        return null;
     }
     
     /**
-     * Searches movies by title or description
+     * Gets the id of a cinema by name, or Showing.UNASSIGNED_CINEMA if there is none
      */
-    public List<Movie> searchMovies(String query) {
-        List<Movie> searchResults = new ArrayList<>();
-        String lowerQuery = query.toLowerCase();
+    public int getCinemaId(String name) {
+        Cinema cinema = getCinemaByName(name);
+        return cinema == null ? Showing.UNASSIGNED_CINEMA : cinema.getId();
+    }
+    
+    /**
+     * Gets the registry that hands out one Showing per movie, cinema and start time
+     */
+    public ShowingRegistry getShowingRegistry() {
+        return showingRegistry;
+    }
+    
+    /**
+     * Gets the schedule of all showtimes
+     */
+    public ShowtimeSchedule getSchedule() {
+        return schedule;
+    }
+    
+    /**
+     * Gets the number of showtimes of a movie
+     */
+    public int getShowtimeCount(int movieId) {
+        return schedule.getMovieShowingCount(movieId);
+    }
+    
+    /**
+     * Gets all showings that start at or after from and before to, in start order
+     */
+    public List<Showing> getShowingsBetween(LocalDateTime from, LocalDateTime to) {
+        return schedule.getShowingsBetween(from, to);
+    }
+    
+    /**
+     * Gets the next count showings starting at or after the given time
+     */
+    public List<Showing> getNextShowings(LocalDateTime from, int count) {
+        return schedule.getNextShowings(from, count);
+    }
+    
+    /**
+     * Gets the showings that are playing at the given time: started, and not over yet
+     */
+    public List<Showing> getNowShowing(LocalDateTime now) {
+        // Only showings that started less than the longest running time ago can still be playing
+        List<Showing> nowShowing = new ArrayList<>();
+        for (Showing showing : schedule.getShowingsBetween(now.minusMinutes(longestDurationMinutes), now.plusMinutes(1))) {
+            Movie movie = movies.get(showing.getMovieId());
+            if (movie != null && !showing.getStartTime().isAfter(now)
+                    && showing.getStartTime().plusMinutes(movie.getDurationMinutes()).isAfter(now)) {
+                nowShowing.add(showing);
+            }
+        }
+        return nowShowing;
+    }
+    
+    /**
+     * Puts a movie's current showtimes in the schedule, replacing its old ones
+     */
+    private void scheduleMovie(Movie movie) {
+        longestDurationMinutes = Math.max(longestDurationMinutes, movie.getDurationMinutes());
+        schedule.setMovieShowings(movie.getId(), toShowings(movie));
+    }
+    
+    /**
+     * Bulk-loads the showtimes of many movies, e.g. a whole season
+     */
+    private void loadSchedule(List<Movie> catalog) {
+        List<Showing> showings = new ArrayList<>();
+        for (Movie movie : catalog) {
+            longestDurationMinutes = Math.max(longestDurationMinutes, movie.getDurationMinutes());
+            showings.addAll(toShowings(movie));
+        }
+        schedule.addAll(showings);
+    }
+    
+    /**
+     * Makes a showing for every showtime of a movie in every cinema it plays in. A movie
+     * without cinemas (or only unknown ones) gets showings that have no cinema.
+     */
+    private List<Showing> toShowings(Movie movie) {
+        List<Integer> cinemaIds = new ArrayList<>(movie.getCinemas().size());
+        for (String name : movie.getCinemas()) {
+            int cinemaId = getCinemaId(name);
+            if (cinemaId == Showing.UNASSIGNED_CINEMA) {
+                System.err.println("Unknown cinema \"" + name + "\" for movie " + movie.getId());
+            } else if (!cinemaIds.contains(cinemaId)) {
+                cinemaIds.add(cinemaId);
+            }
+        }
+        if (cinemaIds.isEmpty()) {
+            cinemaIds.add(Showing.UNASSIGNED_CINEMA);
+        }
         
-        for (Movie movie : movies) {
-            if (movie.getTitle().toLowerCase().contains(lowerQuery) || 
-                movie.getDescription().toLowerCase().contains(lowerQuery)) {
-                searchResults.add(movie);
+        List<Showing> showings = new ArrayList<>(movie.getShowtimes().size() * cinemaIds.size());
+        for (LocalDateTime showtime : movie.getShowtimes()) {
+            for (int cinemaId : cinemaIds) {
+                showings.add(showingRegistry.getOrCreate(movie.getId(), cinemaId, showtime));
             }
         }
+        return showings;
+    }
+    
+    /**
+     * Gets movies by genre tag, ignoring case (e.g., "Action" finds "Sci-Fi/Action")
+     */
+    public List<Movie> getMoviesByGenre(String genre) {
+        return searchIndex.getByGenre(genre);
+    }
+    
+    /**
+     * Searches movies by title, description, director, cast and genre, best matches first.
+     * The last word of the query also matches as a prefix, for type-ahead.
+     */
+    public List<Movie> searchMovies(String query) {
+        return searchIndex.search(query, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Searches movies and returns at most limit of the best matches
+     */
+    public List<Movie> searchMovies(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+    
+    /**
+     * Writes an added or edited movie to the journal
+     */
+    private void journalMovieSaved(Movie movie) {
+        if (journal == null) {
+            return;
+        }
         
-        return searchResults;
+        try {
+            journal.logMovieSaved(movie);
+        } catch (IOException e) {
+            System.err.println("Failed to save movie: " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
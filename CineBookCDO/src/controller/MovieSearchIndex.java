@@ -0,0 +1,330 @@
+package controller;
+
+import model.Movie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over the movie catalog for full-text search.
+ *
+ * Title, description, director, cast and genre are split into lower-case words, and
+ * each word points to the movies that contain it with a weight for the field it was
+ * found in (a title word counts more than a description word). Words are kept sorted,
+ * so the last word of a query also matches as a prefix for type-ahead. Genres are
+ * also split into tags ("Sci-Fi/Action" is "sci-fi" and "action") for exact genre lookups.
+ *
+ * The index is updated one movie at a time as the catalog changes. Searches share a
+ * read lock, so they run in parallel and only wait for the rare catalog edit.
+ */
+public class MovieSearchIndex {
+    private static final int TITLE_WEIGHT = 8;
+    private static final int GENRE_WEIGHT = 5;
+    private static final int DIRECTOR_WEIGHT = 4;
+    private static final int CAST_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_WORD_BONUS = 2; // An exact word match scores twice a prefix match
+
+    private final NavigableMap<String, Map<Integer, Integer>> postings; // Map<word, Map<movieId, weight>>
+    private final Map<String, Set<Integer>> moviesByGenre; // Map<genre tag, movieIds>
+    private final Map<Integer, Movie> movies; // Indexed movies by id, in the order they were added
+    private final Map<Integer, IndexedTerms> termsByMovie; // What each movie added, so it can be taken out again
+    private final ReadWriteLock lock;
+
+    public MovieSearchIndex() {
+        this.postings = new TreeMap<>();
+        this.moviesByGenre = new HashMap<>();
+        this.movies = new LinkedHashMap<>();
+        this.termsByMovie = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds a movie, or re-indexes it if a movie with the same id is already indexed
+     */
+    public void add(Movie movie) {
+        Map<String, Integer> weights = new HashMap<>();
+        addWords(weights, movie.getTitle(), TITLE_WEIGHT);
+        addWords(weights, movie.getGenre(), GENRE_WEIGHT);
+        addWords(weights, movie.getDirector(), DIRECTOR_WEIGHT);
+        addWords(weights, movie.getCast(), CAST_WEIGHT);
+        addWords(weights, movie.getDescription(), DESCRIPTION_WEIGHT);
+        Set<String> genres = toGenreTags(movie.getGenre());
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(movie.getId());
+
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), word -> new HashMap<>()).put(movie.getId(), entry.getValue());
+            }
+            for (String genre : genres) {
+                moviesByGenre.computeIfAbsent(genre, tag -> new LinkedHashSet<>()).add(movie.getId());
+            }
+            movies.put(movie.getId(), movie);
+            termsByMovie.put(movie.getId(), new IndexedTerms(weights.keySet(), genres));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a movie from the index
+     */
+    public void remove(int movieId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(movieId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given movies
+     */
+    public void rebuild(List<Movie> catalog) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            moviesByGenre.clear();
+            movies.clear();
+            termsByMovie.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        for (Movie movie : catalog) {
+            add(movie);
+        }
+    }
+
+    /**
+     * Finds the movies that contain every word of the query, best matches first.
+     * The last word also matches longer words that start with it. An empty query
+     * returns every movie. At most limit movies are returned, none if limit is not
+     * above 0.
+     */
+    public List<Movie> search(String query, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<String> words = tokenize(query);
+
+        lock.readLock().lock();
+        try {
+            if (words.isEmpty()) {
+                List<Movie> all = new ArrayList<>(movies.values());
+                return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+            }
+
+            // Earlier words must match exactly and the last one as a prefix
+            List<Map<Integer, Integer>> wordPostings = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size() - 1; i++) {
+                Map<Integer, Integer> posting = postings.get(words.get(i));
+                if (posting == null) {
+                    return new ArrayList<>();
+                }
+                wordPostings.add(posting);
+            }
+            Map<Integer, Integer> prefixScores = scorePrefix(words.get(words.size() - 1));
+            wordPostings.add(prefixScores);
+
+            // Every word must match, so only the movies of the rarest word need to be looked at
+            Map<Integer, Integer> rarest = prefixScores;
+            for (Map<Integer, Integer> posting : wordPostings) {
+                if (posting.size() < rarest.size()) {
+                    rarest = posting;
+                }
+            }
+
+            // Keep the best matches in a small heap with the worst of them on top
+            Comparator<ScoredMovie> ranking = Comparator.comparingInt((ScoredMovie scored) -> scored.score).reversed()
+                    .thenComparing(scored -> scored.movie.getTitle(), String.CASE_INSENSITIVE_ORDER);
+            PriorityQueue<ScoredMovie> best = new PriorityQueue<>(ranking.reversed());
+            for (int movieId : rarest.keySet()) {
+                int score = 0;
+                for (int i = 0; i < wordPostings.size() && score >= 0; i++) {
+                    Integer weight = wordPostings.get(i).get(movieId);
+                    if (weight == null) {
+                        score = -1;
+                    } else {
+                        score += wordPostings.get(i) == prefixScores ? weight : weight * EXACT_WORD_BONUS;
+                    }
+                }
+                if (score < 0) {
+                    continue;
+                }
+
+                best.add(new ScoredMovie(movies.get(movieId), score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<ScoredMovie> ranked = new ArrayList<>(best);
+            ranked.sort(ranking);
+            List<Movie> results = new ArrayList<>(ranked.size());
+            for (ScoredMovie scored : ranked) {
+                results.add(scored.movie);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the movies tagged with a genre, ignoring case (e.g., "action" finds "Sci-Fi/Action")
+     */
+    public List<Movie> getByGenre(String genre) {
+        if (genre == null) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> ids = moviesByGenre.get(genre.trim().toLowerCase(Locale.ROOT));
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+
+            List<Movie> results = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                results.add(movies.get(id));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores the movies with a word starting with the given prefix. Read lock must be held.
+     */
+    private Map<Integer, Integer> scorePrefix(String prefix) {
+        Map<Integer, Integer> scores = new HashMap<>();
+
+        // Every indexed word starting with the prefix sorts between the prefix and prefix + Character.MAX_VALUE
+        for (Map.Entry<String, Map<Integer, Integer>> match
+                : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            int bonus = match.getKey().length() == prefix.length() ? EXACT_WORD_BONUS : 1;
+            for (Map.Entry<Integer, Integer> entry : match.getValue().entrySet()) {
+                scores.merge(entry.getKey(), entry.getValue() * bonus, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void removeLocked(int movieId) {
+        IndexedTerms terms = termsByMovie.remove(movieId);
+        if (terms == null) {
+            return;
+        }
+
+        for (String word : terms.words) {
+            Map<Integer, Integer> posting = postings.get(word);
+            posting.remove(movieId);
+            if (posting.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+        for (String genre : terms.genres) {
+            Set<Integer> ids = moviesByGenre.get(genre);
+            ids.remove(movieId);
+            if (ids.isEmpty()) {
+                moviesByGenre.remove(genre);
+            }
+        }
+        movies.remove(movieId);
+    }
+
+    /**
+     * Adds the words of a field, keeping the highest weight for words found in several fields
+     */
+    private static void addWords(Map<String, Integer> weights, String text, int weight) {
+        for (String word : tokenize(text)) {
+            weights.merge(word, weight, Math::max);
+        }
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Splits a genre string such as "Sci-Fi/Action" into lower-case tags
+     */
+    private static Set<String> toGenreTags(String genre) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (genre == null) {
+            return tags;
+        }
+
+        for (String tag : genre.split("[/,|]")) {
+            String trimmed = tag.trim().toLowerCase(Locale.ROOT);
+            if (!trimmed.isEmpty()) {
+                tags.add(trimmed);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * A search result and its score
+     */
+    private static class ScoredMovie {
+        final Movie movie;
+        final int score;
+
+        ScoredMovie(Movie movie, int score) {
+            this.movie = movie;
+            this.score = score;
+        }
+    }
+
+    /**
+     * The words and genre tags one movie added to the index
+     */
+    private static class IndexedTerms {
+        final Set<String> words;
+        final Set<String> genres;
+
+        IndexedTerms(Set<String> words, Set<String> genres) {
+            this.words = words;
+            this.genres = genres;
+        }
+    }
+}
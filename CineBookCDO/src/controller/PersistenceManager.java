@@ -0,0 +1,195 @@
+package controller;
+
+import model.Movie;
+import model.Showing;
+import model.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and restores the application's data.
+ *
+ * On startup the latest snapshot is loaded and only the part of the journal written
+ * after it is replayed into the controllers. After that the journal is attached to
+ * the controllers so new changes are recorded, and a new snapshot is taken every few
+ * minutes (and on shutdown) so the journal tail to replay always stays short.
+ */
+public class PersistenceManager implements BookingJournal.Listener {
+    public static final String JOURNAL_FILE = "cinebook.journal";
+    public static final String SNAPSHOT_FILE = "cinebook.snapshot";
+
+    private static final long SNAPSHOT_INTERVAL_MINUTES = 5;
+    private static final long SNAPSHOT_MIN_JOURNAL_BYTES = 64 * 1024; // Skip snapshots when little has changed
+
+    private final Path dataDirectory;
+    private final MovieController movieController;
+    private final BookingController bookingController;
+    private final AdminController adminController;
+    private BookingJournal journal;
+    private SnapshotStore snapshotStore;
+    private ScheduledExecutorService snapshotScheduler;
+    private long lastSnapshotPosition;
+
+    public PersistenceManager(Path dataDirectory, MovieController movieController,
+                              BookingController bookingController, AdminController adminController) {
+        this.dataDirectory = dataDirectory;
+        this.movieController = movieController;
+        this.bookingController = bookingController;
+        this.adminController = adminController;
+    }
+
+    /**
+     * Restores saved data and starts recording changes
+     */
+    public void open() throws IOException {
+        Files.createDirectories(dataDirectory);
+        journal = BookingJournal.open(dataDirectory.resolve(JOURNAL_FILE));
+        snapshotStore = new SnapshotStore(dataDirectory.resolve(SNAPSHOT_FILE));
+
+        long start = System.currentTimeMillis();
+        long replayFrom = 0;
+        if (snapshotStore.exists()) {
+            try {
+                replayFrom = snapshotStore.load(movieController, bookingController, adminController);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not read snapshot, replaying the whole journal: " + e.getMessage());
+                replayFrom = 0;
+            }
+        }
+        lastSnapshotPosition = replayFrom;
+
+        int records = journal.replay(replayFrom, this);
+        System.out.println("Restored data (" + records + " journal records after the snapshot) in " +
+                (System.currentTimeMillis() - start) + " ms");
+
+        movieController.setJournal(journal);
+        bookingController.setJournal(journal);
+        adminController.setJournal(journal);
+
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> takeSnapshot(SNAPSHOT_MIN_JOURNAL_BYTES),
+                SNAPSHOT_INTERVAL_MINUTES, SNAPSHOT_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Writes a snapshot now (if anything changed since the last one)
+     */
+    public void takeSnapshot() {
+        takeSnapshot(1);
+    }
+
+    /**
+     * Stops recording changes, writes a final snapshot and closes the journal
+     */
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+
+        snapshotScheduler.shutdown();
+        takeSnapshot();
+
+        movieController.setJournal(null);
+        bookingController.setJournal(null);
+        adminController.setJournal(null);
+
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+
+    /**
+     * Writes a snapshot if the journal has grown by at least the given number of bytes
+     */
+    private synchronized void takeSnapshot(long minJournalBytes) {
+        if (journal == null) {
+            return;
+        }
+
+        // Read the offset before copying the state; see SnapshotStore for why this is safe
+        long position = journal.getPosition();
+        if (position - lastSnapshotPosition < minJournalBytes) {
+            return;
+        }
+
+        try {
+            snapshotStore.write(position, movieController, bookingController, adminController);
+            lastSnapshotPosition = position;
+        } catch (IOException | RuntimeException e) {
+            // A failed snapshot only means a longer replay next time; the journal has everything
+            System.err.println("Failed to write snapshot: " + e.getMessage());
+        }
+    }
+
+    // Replay callbacks. The controllers have no journal attached yet, so nothing is written twice.
+
+    @Override
+    public void onBooking(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+        bookingController.restoreBooking(bookingController.getShowing(movieId, cinemaId, showtime), seats);
+    }
+
+    @Override
+    public void onCancellation(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+        bookingController.cancelBooking(bookingController.getShowing(movieId, cinemaId, showtime), seats);
+    }
+
+    @Override
+    public void onMovieSaved(Movie movie) {
+        movieController.restoreMovie(movie);
+    }
+
+    @Override
+    public void onMovieRemoved(int movieId) {
+        movieController.removeMovie(movieId);
+    }
+
+    @Override
+    public void onUserSaved(User user) {
+        adminController.restoreUser(user);
+    }
+
+    @Override
+    public void onUserRemoved(String username) {
+        adminController.removeUser(username);
+    }
+
+    @Override
+    public void onSeatsBlocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+        bookingController.blockSeats(bookingController.getShowing(movieId, cinemaId, showtime), seats);
+    }
+
+    @Override
+    public void onSeatsUnblocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+        bookingController.unblockSeats(bookingController.getShowing(movieId, cinemaId, showtime), seats);
+    }
+
+    @Override
+    public void onAllSeatsReleased(int movieId, int cinemaId, LocalDateTime showtime) {
+        bookingController.releaseAllSeats(bookingController.getShowing(movieId, cinemaId, showtime));
+    }
+
+    @Override
+    public void onBlockedSeatsCopied(Showing source, List<Showing> targets) {
+        List<Showing> showings = new ArrayList<>(targets.size());
+        for (Showing target : targets) {
+            showings.add(bookingController.getShowing(target.getMovieId(), target.getCinemaId(), target.getStartTime()));
+        }
+        bookingController.copyBlockedSeats(
+                bookingController.getShowing(source.getMovieId(), source.getCinemaId(), source.getStartTime()), showings);
+    }
+}
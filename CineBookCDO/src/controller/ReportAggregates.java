@@ -0,0 +1,214 @@
+package controller;
+
+import model.Showing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running sales totals that are updated on every sale and cancellation,
+ * so reports can read them instead of recounting every showing.
+ * Revenue is kept in centavos from the price each seat was actually sold at, so it is exact.
+ * The number of seats in each movie's scheduled showings and the tickets sold for those
+ * showings are kept as well, updated as showings are scheduled and unscheduled, so
+ * occupancy is a division instead of a scan.
+ */
+public class ReportAggregates implements BookingListener {
+    private final Map<Integer, MovieTotals> totalsByMovie; // Map<movieId, totals>
+    private final Map<Integer, LongAdder> seatsByMovie; // Map<movieId, seats in its scheduled showings>
+    private final Map<Integer, LongAdder> scheduledTicketsByMovie; // Map<movieId, tickets sold for its scheduled showings>
+    private final Map<Integer, ShowingTotals> totalsByShowing; // Map<showing handle, totals>
+    private final LongAdder totalTickets;
+    private final LongAdder totalRevenueCents;
+    private final AtomicLong version; // Goes up after every change to the totals
+
+    public ReportAggregates() {
+        this.totalsByMovie = new ConcurrentHashMap<>();
+        this.seatsByMovie = new ConcurrentHashMap<>();
+        this.scheduledTicketsByMovie = new ConcurrentHashMap<>();
+        this.totalsByShowing = new ConcurrentHashMap<>();
+        this.totalTickets = new LongAdder();
+        this.totalRevenueCents = new LongAdder();
+        this.version = new AtomicLong();
+    }
+
+    @Override
+    public void seatsSold(Showing showing, SeatChange change) {
+        add(showing, change.size(), change.getAmountCents());
+    }
+
+    @Override
+    public void seatsReleased(Showing showing, SeatChange change) {
+        add(showing, -change.size(), -change.getAmountCents());
+    }
+
+    /**
+     * Gets the number of tickets sold for a movie across all its showings
+     */
+    public long getTicketsSold(int movieId) {
+        MovieTotals totals = totalsByMovie.get(movieId);
+        return totals == null ? 0 : totals.tickets.sum();
+    }
+
+    /**
+     * Gets the number of tickets sold for all movies
+     */
+    public long getTotalTicketsSold() {
+        return totalTickets.sum();
+    }
+
+    /**
+     * Gets the revenue of a movie in centavos
+     */
+    public long getRevenueCents(int movieId) {
+        MovieTotals totals = totalsByMovie.get(movieId);
+        return totals == null ? 0 : totals.revenueCents.sum();
+    }
+
+    /**
+     * Gets the revenue of all movies in centavos
+     */
+    public long getTotalRevenueCents() {
+        return totalRevenueCents.sum();
+    }
+
+    /**
+     * Gets the number of seats in all scheduled showings of a movie
+     */
+    public long getSeats(int movieId) {
+        LongAdder seats = seatsByMovie.get(movieId);
+        return seats == null ? 0 : seats.sum();
+    }
+
+    /**
+     * Gets the number of tickets sold for the scheduled showings of a movie, the
+     * showings whose seats getSeats counts
+     */
+    public long getScheduledTicketsSold(int movieId) {
+        LongAdder tickets = scheduledTicketsByMovie.get(movieId);
+        return tickets == null ? 0 : tickets.sum();
+    }
+
+    /**
+     * Records that a showing with the given number of seats was scheduled (or
+     * unscheduled), adding (or removing) its seats and the tickets sold for it
+     */
+    void setScheduled(Showing showing, int seats, boolean scheduled) {
+        ShowingTotals totals = getShowingTotals(showing);
+        synchronized (totals) {
+            if (totals.scheduled == scheduled) {
+                return;
+            }
+            totals.scheduled = scheduled;
+            int sign = scheduled ? 1 : -1;
+            seatsByMovie.computeIfAbsent(totals.movieId, id -> new LongAdder()).add(sign * seats);
+            scheduledTicketsByMovie.computeIfAbsent(totals.movieId, id -> new LongAdder()).add(sign * totals.tickets);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Adds the sales totals of another instance to this one
+     */
+    void addAll(ReportAggregates other) {
+        for (Map.Entry<Integer, MovieTotals> entry : other.totalsByMovie.entrySet()) {
+            MovieTotals totals = totalsByMovie.computeIfAbsent(entry.getKey(), id -> new MovieTotals());
+            totals.tickets.add(entry.getValue().tickets.sum());
+            totals.revenueCents.add(entry.getValue().revenueCents.sum());
+        }
+        for (ShowingTotals totals : other.totalsByShowing.values()) {
+            addTickets(totalsByShowing.computeIfAbsent(totals.handle, handle -> new ShowingTotals(totals)),
+                    totals.tickets);
+        }
+        totalTickets.add(other.totalTickets.sum());
+        totalRevenueCents.add(other.totalRevenueCents.sum());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces all sales totals with ones rebuilt from scratch. Seat counts and which
+     * showings are scheduled are kept, since they follow the schedule rather than sales.
+     * Sales made while this runs may be lost, so it is only called when nothing is being sold.
+     */
+    void replaceWith(ReportAggregates rebuilt) {
+        totalsByMovie.clear();
+        totalsByMovie.putAll(rebuilt.totalsByMovie);
+        scheduledTicketsByMovie.clear();
+        for (ShowingTotals totals : totalsByShowing.values()) {
+            synchronized (totals) {
+                totals.tickets = 0;
+            }
+        }
+        for (ShowingTotals totals : rebuilt.totalsByShowing.values()) {
+            addTickets(totalsByShowing.computeIfAbsent(totals.handle, handle -> new ShowingTotals(totals)),
+                    totals.tickets);
+        }
+        totalTickets.reset();
+        totalTickets.add(rebuilt.totalTickets.sum());
+        totalRevenueCents.reset();
+        totalRevenueCents.add(rebuilt.totalRevenueCents.sum());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets a number that goes up whenever the totals change, so results built from
+     * them can tell when they are out of date
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void add(Showing showing, int tickets, long revenueCents) {
+        MovieTotals totals = totalsByMovie.computeIfAbsent(showing.getMovieId(), id -> new MovieTotals());
+        totals.tickets.add(tickets);
+        totals.revenueCents.add(revenueCents);
+        addTickets(getShowingTotals(showing), tickets);
+        totalTickets.add(tickets);
+        totalRevenueCents.add(revenueCents);
+        version.incrementAndGet();
+    }
+
+    private void addTickets(ShowingTotals totals, int tickets) {
+        synchronized (totals) {
+            totals.tickets += tickets;
+            if (totals.scheduled) {
+                scheduledTicketsByMovie.computeIfAbsent(totals.movieId, id -> new LongAdder()).add(tickets);
+            }
+        }
+    }
+
+    private ShowingTotals getShowingTotals(Showing showing) {
+        return totalsByShowing.computeIfAbsent(showing.getHandle(),
+                handle -> new ShowingTotals(handle, showing.getMovieId()));
+    }
+
+    /**
+     * Totals for one movie
+     */
+    private static class MovieTotals {
+        final LongAdder tickets = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+    }
+
+    /**
+     * Tickets sold for one showing and whether it is scheduled. Guarded by its own lock,
+     * so a sale and a schedule change cannot both miss (or both count) the same tickets.
+     */
+    private static class ShowingTotals {
+        final int handle;
+        final int movieId;
+        int tickets;
+        boolean scheduled;
+
+        ShowingTotals(int handle, int movieId) {
+            this.handle = handle;
+            this.movieId = movieId;
+        }
+
+        ShowingTotals(ShowingTotals other) {
+            this(other.handle, other.movieId);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the last result of each report together with the data version it was
+ * built from, so asking for the same report again costs a map lookup until a sale,
+ * cancellation or movie edit changes the version.
+ *
+ * The version must be read before the report is built. A change that lands while
+ * the report is being built then leaves the entry one version behind, so the next
+ * request builds it again rather than keeping a result that may have missed the change.
+ */
+class ReportCache {
+    private final Map<String, Entry> entries; // Map<report type, last result>
+
+    ReportCache() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the result of a report for a data version, building it if the cached one is older
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String reportType, long version, Supplier<T> build) {
+        Entry entry = entries.get(reportType);
+        if (entry != null && entry.version == version) {
+            return (T) entry.result;
+        }
+
+        T result = build.get();
+        entries.merge(reportType, new Entry(version, result),
+                (old, built) -> old.version > built.version ? old : built); // Never replace a newer result
+        return result;
+    }
+
+    /**
+     * A report result and the data version it was built from
+     */
+    private static class Entry {
+        final long version;
+        final Object result;
+
+        Entry(long version, Object result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
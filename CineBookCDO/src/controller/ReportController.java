@@ -1,24 +1,64 @@
 package controller;
 
+import model.Cinema;
 import model.Movie;
+import model.Showing;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Controller class for report-related operations
+ * Controller class for report-related operations.
+ * Reports are read from running totals that are kept up to date on every sale
+ * and cancellation, so they cost O(movies) at most instead of a scan of every showing.
+ * Each report's series is also kept until sales or movies change, so showing the
+ * same report again costs nothing. The totals can be rebuilt from scratch in
+ * parallel, one part of the showings per task.
  */
 public class ReportController {
+    public static final String TICKETS_PER_MOVIE = "Tickets Per Movie";
+    public static final String TICKETS_PER_CINEMA = "Tickets Per Cinema";
+    public static final String REVENUE_PER_MOVIE = "Revenue Per Movie";
+    public static final String REVENUE_PER_CINEMA = "Revenue Per Cinema";
+    public static final String SEAT_OCCUPANCY = "Seat Occupancy";
+    
     private BookingController bookingController;
     private MovieController movieController;
+    private ReportAggregates aggregates;
+    private ReportCache cache;
+    private ReportExporter exporter;
+    private SalesCube salesCube;
     
     public ReportController(BookingController bookingController, MovieController movieController) {
         this.bookingController = bookingController;
         this.movieController = movieController;
+        this.aggregates = new ReportAggregates();
+        this.salesCube = new SalesCube(bookingController);
+        this.cache = new ReportCache();
+        this.exporter = new ReportExporter(bookingController, movieController);
+        bookingController.addBookingListener(aggregates);
+        bookingController.addBookingListener(salesCube);
+        movieController.getSchedule().addScheduleListener(new ScheduleListener() {
+            @Override
+            public void showingAdded(Showing showing) {
+                aggregates.setScheduled(showing, bookingController.getTotalSeatsCount(showing), true);
+            }
+            
+            @Override
+            public void showingRemoved(Showing showing) {
+                aggregates.setScheduled(showing, bookingController.getTotalSeatsCount(showing), false);
+            }
+        });
+        rebuildReports(); // Count the seats sold before we started listening
     }
     
     /**
@@ -26,16 +66,9 @@ public class ReportController {
      */
     public Map<Movie, Integer> getTicketSalesReport() {
         Map<Movie, Integer> salesReport = new HashMap<>();
-        List<Movie> movies = movieController.getAllMovies();
         
-        for (Movie movie : movies) {
-            int totalSales = 0;
-            
-            for (LocalDateTime showtime : movie.getShowtimes()) {
-                totalSales += bookingController.getBookedSeatsCount(movie.getId(), showtime);
-            }
-            
-            salesReport.put(movie, totalSales);
+        for (Movie movie : movieController.getAllMovies()) {
+            salesReport.put(movie, (int) aggregates.getTicketsSold(movie.getId()));
         }
         
         return salesReport;
@@ -46,43 +79,22 @@ public class ReportController {
      */
     public Map<Movie, Double> getRevenueReport() {
         Map<Movie, Double> revenueReport = new HashMap<>();
-        Map<Movie, Integer> salesReport = getTicketSalesReport();
-        
-        // Assume standard ticket price is 200 pesos
-        final double TICKET_PRICE = 200.0;
         
-        for (Map.Entry<Movie, Integer> entry : salesReport.entrySet()) {
-            Movie movie = entry.getKey();
-            int ticketsSold = entry.getValue();
-            double revenue = ticketsSold * TICKET_PRICE;
-            
-            revenueReport.put(movie, revenue);
+        for (Movie movie : movieController.getAllMovies()) {
+            revenueReport.put(movie, aggregates.getRevenueCents(movie.getId()) / 100.0);
         }
         
         return revenueReport;
     }
     
     /**
-     * Gets occupancy report
+     * Gets occupancy report: sold seats as a percentage of the seats in the movie's showtimes
      */
     public Map<Movie, Double> getOccupancyReport() {
         Map<Movie, Double> occupancyReport = new HashMap<>();
-        List<Movie> movies = movieController.getAllMovies();
         
-        for (Movie movie : movies) {
-            double totalOccupancy = 0;
-            int showtimeCount = movie.getShowtimes().size();
-            
-            if (showtimeCount > 0) {
-                for (LocalDateTime showtime : movie.getShowtimes()) {
-                    totalOccupancy += bookingController.getOccupancyPercentage(movie.getId(), showtime);
-                }
-                
-                double averageOccupancy = totalOccupancy / showtimeCount;
-                occupancyReport.put(movie, averageOccupancy);
-            } else {
-                occupancyReport.put(movie, 0.0);
-            }
+        for (Movie movie : movieController.getAllMovies()) {
+            occupancyReport.put(movie, getOccupancy(movie));
         }
         
         return occupancyReport;
@@ -92,41 +104,258 @@ public class ReportController {
      * Gets total revenue
      */
     public double getTotalRevenue() {
-        Map<Movie, Double> revenueReport = getRevenueReport();
-        double totalRevenue = 0;
+        return getTotalRevenueCents() / 100.0;
+    }
+    
+    /**
+     * Gets total revenue in centavos, exactly
+     */
+    public long getTotalRevenueCents() {
+        return aggregates.getTotalRevenueCents();
+    }
+    
+    /**
+     * Gets a movie's revenue in centavos, exactly
+     */
+    public long getRevenueCents(Movie movie) {
+        return aggregates.getRevenueCents(movie.getId());
+    }
+    
+    /**
+     * Gets total tickets sold
+     */
+    public int getTotalTicketsSold() {
+        return (int) aggregates.getTotalTicketsSold();
+    }
+    
+    /**
+     * Gets average occupancy percentage
+     */
+    public double getAverageOccupancy() {
+        List<Movie> movies = movieController.getAllMovies();
+        if (movies.isEmpty()) {
+            return 0;
+        }
         
-        for (double revenue : revenueReport.values()) {
-            totalRevenue += revenue;
+        double totalOccupancy = 0;
+        for (Movie movie : movies) {
+            totalOccupancy += getOccupancy(movie);
         }
         
-        return totalRevenue;
+        return totalOccupancy / movies.size();
     }
     
     /**
-     * Gets total tickets sold
+     * Gets the occupancy percentage of every showing that starts in a date range, in start order
      */
-    public int getTotalTicketsSold() {
-        Map<Movie, Integer> salesReport = getTicketSalesReport();
-        int totalTickets = 0;
+    public Map<Showing, Double> getShowingOccupancyReport(LocalDateTime from, LocalDateTime to) {
+        Map<Showing, Double> occupancyReport = new LinkedHashMap<>();
         
-        for (int tickets : salesReport.values()) {
-            totalTickets += tickets;
+        for (Showing showing : movieController.getShowingsBetween(from, to)) {
+            occupancyReport.put(showing, bookingController.getOccupancyPercentage(showing));
         }
         
-        return totalTickets;
+        return occupancyReport;
     }
     
     /**
-     * Gets average occupancy percentage
+     * Gets the number of tickets sold for showings that start in a date range
      */
-    public double getAverageOccupancy() {
-        Map<Movie, Double> occupancyReport = getOccupancyReport();
-        double totalOccupancy = 0;
+    public int getTicketsSoldBetween(LocalDateTime from, LocalDateTime to) {
+        int tickets = 0;
+        for (Showing showing : movieController.getShowingsBetween(from, to)) {
+            tickets += bookingController.getBookedSeatsCount(showing);
+        }
+        return tickets;
+    }
+    
+    /**
+     * Rebuilds the running totals behind every report from the sold seats of every
+     * showing, in parallel on the common fork/join pool. Used after bulk changes that
+     * bypassed the booking listeners, such as an import. Sales made while it runs may
+     * be counted wrongly, so call it when nothing is being sold.
+     */
+    public void rebuildReports() {
+        rebuildReports(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Rebuilds the running totals using a given number of threads, e.g. to measure how
+     * a rebuild scales
+     */
+    public void rebuildReports(int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            rebuildReports(pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private void rebuildReports(ForkJoinPool pool) {
+        List<Showing> showings = bookingController.getShowingRegistry().getAllShowings();
+        ReportRebuilder.Totals totals = pool.invoke(new ReportRebuilder(bookingController, showings));
+        aggregates.replaceWith(totals.aggregates);
+        salesCube.replaceWith(totals.salesCube);
+    }
+    
+    /**
+     * Gets a number that goes up whenever sales or movies change. Reports built at
+     * the same version are the same.
+     */
+    public long getDataVersion() {
+        return aggregates.getVersion() + movieController.getVersion();
+    }
+    
+    /**
+     * Gets the rows of a report, or null if the report type is unknown. The series is
+     * only rebuilt after sales or movies have changed; until then the same instance is returned.
+     */
+    public ReportSeries getReportSeries(String reportType) {
+        long version = getDataVersion(); // Read first; see ReportCache
+        return cache.get(reportType, version, () -> buildSeries(reportType));
+    }
+    
+    /**
+     * Gets a report as text, one line per movie or cinema, for display or export
+     */
+    public String getReportAsString(String reportType) {
+        ReportSeries series = getReportSeries(reportType);
+        if (series == null) {
+            return "CineBook CDO - " + reportType + " Report\n\nUnknown report type\n";
+        }
+        return formatReport(series);
+    }
+    
+    /**
+     * Formats a report series as text, one line per movie or cinema followed by the total
+     * (or the average, for percentages)
+     */
+    public String formatReport(ReportSeries series) {
+        StringBuilder report = new StringBuilder();
+        report.append("CineBook CDO - ").append(series.getReportType()).append(" Report\n");
+        report.append("Generated: ").append(LocalDateTime.now().withNano(0)).append("\n\n");
+        
+        for (int row = 0; row < series.size(); row++) {
+            report.append(String.format("%-40s %10s%n", series.getLabel(row), series.formatValue(series.getValue(row))));
+        }
+        if (series.getKind() == ReportSeries.Kind.PERCENT) {
+            report.append(String.format("%n%-40s %10s%n", "Average", series.formatValue(series.getAverage())));
+        } else {
+            report.append(String.format("%n%-40s %10s%n", "Total", series.formatValue(series.getTotal())));
+        }
+        
+        return report.toString();
+    }
+    
+    /**
+     * Writes a report to a text file. Returns false if it could not be written.
+     */
+    public boolean exportReportToFile(String reportType, String filePath) {
+        try {
+            Files.write(Paths.get(filePath), getReportAsString(reportType).getBytes(StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error exporting report: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Builds the rows of a report from the running totals, or returns null if the type is unknown
+     */
+    private ReportSeries buildSeries(String reportType) {
+        List<Movie> movies = movieController.getAllMovies();
+        String[] labels;
+        double[] values;
+        
+        switch (reportType) {
+            case TICKETS_PER_MOVIE:
+            case REVENUE_PER_MOVIE:
+            case SEAT_OCCUPANCY:
+                labels = new String[movies.size()];
+                values = new double[movies.size()];
+                for (int i = 0; i < labels.length; i++) {
+                    Movie movie = movies.get(i);
+                    labels[i] = movie.getTitle();
+                    if (reportType.equals(TICKETS_PER_MOVIE)) {
+                        values[i] = aggregates.getTicketsSold(movie.getId());
+                    } else if (reportType.equals(REVENUE_PER_MOVIE)) {
+                        values[i] = aggregates.getRevenueCents(movie.getId()) / 100.0;
+                    } else {
+                        values[i] = getOccupancy(movie);
+                    }
+                }
+                break;
+            case TICKETS_PER_CINEMA:
+            case REVENUE_PER_CINEMA:
+                boolean revenue = reportType.equals(REVENUE_PER_CINEMA);
+                Map<Integer, Long> totals = salesCube.groupBy(SalesCube.Dimension.CINEMA,
+                        revenue ? SalesCube.Measure.REVENUE_CENTS : SalesCube.Measure.TICKETS,
+                        null, null, SalesCube.ANY, SalesCube.ANY, null);
+                labels = new String[totals.size()];
+                values = new double[totals.size()];
+                int i = 0;
+                for (Map.Entry<Integer, Long> entry : totals.entrySet()) {
+                    Cinema cinema = movieController.getCinemaById(entry.getKey());
+                    labels[i] = cinema != null ? cinema.getName()
+                            : entry.getKey() == Showing.UNASSIGNED_CINEMA ? "Unassigned" : "Cinema " + entry.getKey();
+                    values[i] = revenue ? entry.getValue() / 100.0 : entry.getValue();
+                    i++;
+                }
+                break;
+            default:
+                return null;
+        }
         
-        for (double occupancy : occupancyReport.values()) {
-            totalOccupancy += occupancy;
+        ReportSeries.Kind kind = reportType.equals(SEAT_OCCUPANCY) ? ReportSeries.Kind.PERCENT
+                : reportType.startsWith("Revenue") ? ReportSeries.Kind.MONEY : ReportSeries.Kind.COUNT;
+        return new ReportSeries(reportType, kind, labels, values);
+    }
+    
+    /**
+     * Streams the booking history, one row per seat booked or cancelled, to a file.
+     * Returns the number of rows written, or -1 if the export failed.
+     */
+    public long exportBookingHistory(ReportExporter.Format format, String filePath) {
+        return exporter.export(format, Paths.get(filePath));
+    }
+    
+    /**
+     * Gets the sales cube, for reports by cinema, movie, seat tier and showtime
+     */
+    public SalesCube getSalesCube() {
+        return salesCube;
+    }
+    
+    /**
+     * Gets tickets sold by hour of day (0-23) for showings in the whole hours starting
+     * at or after from and before to
+     */
+    public SortedMap<Integer, Long> getTicketsByHourOfDay(LocalDateTime from, LocalDateTime to) {
+        return salesCube.groupBy(SalesCube.Dimension.HOUR_OF_DAY, SalesCube.Measure.TICKETS, from, to,
+                SalesCube.ANY, SalesCube.ANY, null);
+    }
+    
+    /**
+     * Gets a cinema's revenue in centavos by ISO day of week (1 is Monday) for showings
+     * in the whole hours starting at or after from and before to
+     */
+    public SortedMap<Integer, Long> getRevenueCentsByWeekday(int cinemaId, LocalDateTime from, LocalDateTime to) {
+        return salesCube.groupBy(SalesCube.Dimension.DAY_OF_WEEK, SalesCube.Measure.REVENUE_CENTS, from, to,
+                cinemaId, SalesCube.ANY, null);
+    }
+    
+    /**
+     * Gets the average occupancy of a movie's scheduled showtimes as a percentage.
+     * Tickets sold for showings no longer scheduled are not counted.
+     */
+    private double getOccupancy(Movie movie) {
+        long seats = aggregates.getSeats(movie.getId());
+        if (seats == 0) {
+            return 0.0;
         }
         
-        return totalOccupancy / occupancyReport.size();
+        return (double) aggregates.getScheduledTicketsSold(movie.getId()) / seats * 100;
     }
 }
\ No newline at end of file
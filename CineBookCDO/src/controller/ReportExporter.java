@@ -0,0 +1,611 @@
+package controller;
+
+import model.HallLayout;
+import model.Movie;
+import model.SeatCode;
+import model.SeatTier;
+import model.Showing;
+import model.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Exports the booking history, one row per seat booked or cancelled, for spreadsheets
+ * and the BI loader.
+ *
+ * Rows are read from the booking journal and written out as they are read, through
+ * one fixed-size buffer into a FileChannel. The journal does not store prices, so each
+ * row has the list price of the seat's tier.
+ *
+ * A reset of a showing is journaled as one record without its seats, so the seats
+ * each showing has sold so far are tracked during the export, and a reset is written
+ * as one cancellation row per seat that was still sold. Apart from that set, which
+ * grows with the seats currently sold rather than with the history, exporting years
+ * of bookings takes no more memory than exporting a day.
+ *
+ * Formats:
+ * - CSV: a header row, then one line per seat.
+ * - JSON Lines: one object per seat.
+ * - Columnar: a binary file for bulk loading. Header: magic "CBX1", version, rows per
+ *   group, the columns (name and type), then the movie titles by id. Rows follow in
+ *   groups, each stored as its row count and then one column after another. A group
+ *   of 0 rows ends the file. Numbers are big-endian; strings are a 2-byte length and
+ *   UTF-8 bytes. Every group but the last has GROUP_ROWS rows; only one group
+ *   is held in memory at a time.
+ *
+ * The file is written next to the target and moved over it when complete, so a failed
+ * export never leaves half a file behind.
+ */
+public class ReportExporter {
+    /**
+     * File formats an export can be written in
+     */
+    public enum Format {
+        CSV("csv"), JSON_LINES("jsonl"), COLUMNAR("cbx");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    public static final int COLUMNAR_MAGIC = 0x43425831; // "CBX1"
+    public static final int COLUMNAR_VERSION = 1;
+    public static final int GROUP_ROWS = 4096;
+
+    // Column types in the columnar header
+    public static final byte TYPE_BYTE = 1;
+    public static final byte TYPE_INT = 4;
+    public static final byte TYPE_LONG = 8;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final String CSV_HEADER = "record,event,movie_id,movie_title,cinema_id,showtime,seat,tier,price_cents\n";
+
+    private final BookingController bookingController;
+    private final MovieController movieController;
+
+    public ReportExporter(BookingController bookingController, MovieController movieController) {
+        this.bookingController = bookingController;
+        this.movieController = movieController;
+    }
+
+    /**
+     * Writes the booking history to a file. Returns the number of rows written, or -1
+     * if there is no saved history or the file could not be written.
+     */
+    public long export(Format format, Path file) {
+        BookingJournal journal = bookingController.getJournal();
+        if (journal == null) {
+            System.err.println("Error exporting bookings: bookings are not being saved");
+            return -1;
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows;
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            RowWriter writer = createWriter(format, channel);
+            writer.writeHeader();
+            try {
+                journal.scan(new RowProducer(writer));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+            channel.force(false);
+            rows = writer.rows;
+        } catch (IOException e) {
+            System.err.println("Error exporting bookings: " + e.getMessage());
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // Nothing more to do; the target file was not touched
+            }
+            return -1;
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Error exporting bookings: " + e.getMessage());
+            return -1;
+        }
+        return rows;
+    }
+
+    private RowWriter createWriter(Format format, FileChannel channel) {
+        switch (format) {
+            case CSV:
+                return new CsvWriter(channel);
+            case JSON_LINES:
+                return new JsonLinesWriter(channel);
+            default:
+                return new ColumnarWriter(channel);
+        }
+    }
+
+    private String getMovieTitle(int movieId) {
+        Movie movie = movieController.getMovieById(movieId);
+        return movie == null ? "" : movie.getTitle();
+    }
+
+    /**
+     * One row of the export. A single instance is filled in for every row.
+     */
+    private static class Row {
+        long record;        // Number of the journal record, from 1
+        byte event;         // BookingJournal.BOOKING or CANCELLATION
+        int movieId;
+        String movieTitle;
+        int cinemaId;
+        LocalDateTime showtime; // May be null
+        int seatCode;       // SeatCode, with the tier when the seat is in the hall
+        SeatTier tier;      // Null if the seat is not in the hall's layout
+        int priceCents;
+
+        String getEventName() {
+            return event == BookingJournal.BOOKING ? "BOOKING" : "CANCELLATION";
+        }
+    }
+
+    /**
+     * Identifies a showing in the journal: its movie, cinema and showtime (which may be null)
+     */
+    private static final class ShowingKey {
+        private final int movieId;
+        private final int cinemaId;
+        private final LocalDateTime showtime;
+
+        ShowingKey(int movieId, int cinemaId, LocalDateTime showtime) {
+            this.movieId = movieId;
+            this.cinemaId = cinemaId;
+            this.showtime = showtime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ShowingKey)) return false;
+            ShowingKey other = (ShowingKey) o;
+            return movieId == other.movieId && cinemaId == other.cinemaId && Objects.equals(showtime, other.showtime);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(movieId, cinemaId, showtime);
+        }
+    }
+
+    /**
+     * Turns booking and cancellation records into rows, one per seat. Resets of a
+     * showing become a cancellation row for each seat it still had sold.
+     */
+    private class RowProducer implements BookingJournal.Listener {
+        private final RowWriter writer;
+        private final Row row = new Row();
+        private final Map<ShowingKey, Set<String>> soldSeats = new HashMap<>(); // Seat ids in booking order
+        private long record;
+
+        RowProducer(RowWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void onBooking(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+            soldSeats.computeIfAbsent(new ShowingKey(movieId, cinemaId, showtime), key -> new LinkedHashSet<>())
+                    .addAll(seats);
+            writeRows(BookingJournal.BOOKING, movieId, cinemaId, showtime, seats);
+        }
+
+        @Override
+        public void onCancellation(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+            ShowingKey key = new ShowingKey(movieId, cinemaId, showtime);
+            Set<String> sold = soldSeats.get(key);
+            if (sold != null) {
+                for (String seat : seats) {
+                    sold.remove(seat); // Not removeAll, which may call contains on the list for every sold seat
+                }
+                if (sold.isEmpty()) {
+                    soldSeats.remove(key);
+                }
+            }
+            writeRows(BookingJournal.CANCELLATION, movieId, cinemaId, showtime, seats);
+        }
+
+        @Override
+        public void onMovieSaved(Movie movie) {
+            record++;
+        }
+
+        @Override
+        public void onMovieRemoved(int movieId) {
+            record++;
+        }
+
+        @Override
+        public void onUserSaved(User user) {
+            record++;
+        }
+
+        @Override
+        public void onUserRemoved(String username) {
+            record++;
+        }
+
+        @Override
+        public void onSeatsBlocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+            record++;
+        }
+
+        @Override
+        public void onSeatsUnblocked(int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+            record++;
+        }
+
+        @Override
+        public void onAllSeatsReleased(int movieId, int cinemaId, LocalDateTime showtime) {
+            Set<String> sold = soldSeats.remove(new ShowingKey(movieId, cinemaId, showtime));
+            writeRows(BookingJournal.CANCELLATION, movieId, cinemaId, showtime,
+                    sold == null ? new ArrayList<>() : new ArrayList<>(sold));
+        }
+
+        @Override
+        public void onBlockedSeatsCopied(Showing source, List<Showing> targets) {
+            record++;
+        }
+
+        private void writeRows(byte event, int movieId, int cinemaId, LocalDateTime showtime, List<String> seats) {
+            record++;
+            HallLayout layout = bookingController.getHallLayoutRegistry().getLayout(cinemaId);
+            row.record = record;
+            row.event = event;
+            row.movieId = movieId;
+            row.movieTitle = getMovieTitle(movieId);
+            row.cinemaId = cinemaId;
+            row.showtime = showtime;
+
+            try {
+                for (String seatId : seats) {
+                    int index = layout.toSeatIndex(seatId);
+                    row.seatCode = index >= 0 ? layout.getSeatCode(index) : SeatCode.parse(seatId);
+                    if (row.seatCode == SeatCode.INVALID) {
+                        continue; // Not a seat id; nothing sensible to export
+                    }
+                    row.tier = index >= 0 ? layout.getTier(index) : null;
+                    row.priceCents = row.tier == null ? 0 : row.tier.getPriceCents();
+                    writer.writeRow(row);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // The journal's listener cannot throw; export unwraps it
+            }
+        }
+    }
+
+    /**
+     * Writes rows in one format through a fixed-size buffer
+     */
+    private abstract class RowWriter {
+        private final FileChannel channel;
+        protected final ByteBuffer buffer;
+        protected long rows;
+
+        RowWriter(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        }
+
+        abstract void writeHeader() throws IOException;
+
+        abstract void writeRow(Row row) throws IOException;
+
+        /**
+         * Writes whatever is left in the buffer
+         */
+        void finish() throws IOException {
+            flush();
+        }
+
+        /**
+         * Makes room for a number of bytes, writing out the buffer if needed
+         */
+        protected void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        protected void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes each row as one line of text, built in a reused builder and encoded
+     * straight into the buffer
+     */
+    private abstract class TextWriter extends RowWriter {
+        protected final StringBuilder line = new StringBuilder(256);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        TextWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        protected void writeLine() throws IOException {
+            CharBuffer chars = CharBuffer.wrap(line);
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    flush();
+                } else if (result.isError()) {
+                    result.throwException();
+                } else {
+                    break;
+                }
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                flush();
+            }
+            line.setLength(0);
+        }
+
+        protected void appendShowtime(Row row) {
+            if (row.showtime != null) {
+                DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(row.showtime, line);
+            }
+        }
+    }
+
+    private class CsvWriter extends TextWriter {
+        CsvWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            line.append(CSV_HEADER);
+            writeLine();
+        }
+
+        @Override
+        void writeRow(Row row) throws IOException {
+            line.append(row.record).append(',').append(row.getEventName()).append(',').append(row.movieId).append(',');
+            appendQuoted(row.movieTitle);
+            line.append(',').append(row.cinemaId).append(',');
+            appendShowtime(row);
+            line.append(',');
+            SeatCode.appendTo(line, row.seatCode);
+            line.append(',').append(row.tier == null ? "" : row.tier.name()).append(',').append(row.priceCents).append('\n');
+            writeLine();
+            rows++;
+        }
+
+        /**
+         * Appends a field, quoting it if it holds a comma, quote or line break
+         */
+        private void appendQuoted(String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+    }
+
+    private class JsonLinesWriter extends TextWriter {
+        JsonLinesWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void writeHeader() {
+            // JSON Lines has no header; every object names its fields
+        }
+
+        @Override
+        void writeRow(Row row) throws IOException {
+            line.append("{\"record\":").append(row.record)
+                    .append(",\"event\":\"").append(row.getEventName())
+                    .append("\",\"movieId\":").append(row.movieId)
+                    .append(",\"movieTitle\":");
+            appendJsonString(row.movieTitle);
+            line.append(",\"cinemaId\":").append(row.cinemaId).append(",\"showtime\":");
+            if (row.showtime == null) {
+                line.append("null");
+            } else {
+                line.append('"');
+                appendShowtime(row);
+                line.append('"');
+            }
+            line.append(",\"seat\":\"");
+            SeatCode.appendTo(line, row.seatCode);
+            line.append("\",\"tier\":");
+            if (row.tier == null) {
+                line.append("null");
+            } else {
+                line.append('"').append(row.tier.name()).append('"');
+            }
+            line.append(",\"priceCents\":").append(row.priceCents).append("}\n");
+            writeLine();
+            rows++;
+        }
+
+        private void appendJsonString(String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 0x20) {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+
+    /**
+     * Collects GROUP_ROWS rows in primitive columns and writes them one column at a time
+     */
+    private class ColumnarWriter extends RowWriter {
+        private final long[] records = new long[GROUP_ROWS];
+        private final byte[] events = new byte[GROUP_ROWS];
+        private final int[] movieIds = new int[GROUP_ROWS];
+        private final int[] cinemaIds = new int[GROUP_ROWS];
+        private final long[] showtimes = new long[GROUP_ROWS]; // Epoch seconds in UTC, Long.MIN_VALUE if none
+        private final int[] seatCodes = new int[GROUP_ROWS];
+        private final byte[] tiers = new byte[GROUP_ROWS];     // Ordinal, -1 if unknown
+        private final int[] prices = new int[GROUP_ROWS];
+        private int groupRows;
+
+        ColumnarWriter(FileChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void writeHeader() throws IOException {
+            ensure(12);
+            buffer.putInt(COLUMNAR_MAGIC);
+            buffer.putShort((short) COLUMNAR_VERSION);
+            buffer.putInt(GROUP_ROWS);
+            buffer.putShort((short) 8);
+            writeColumn("record", TYPE_LONG);
+            writeColumn("event", TYPE_BYTE);
+            writeColumn("movie_id", TYPE_INT);
+            writeColumn("cinema_id", TYPE_INT);
+            writeColumn("showtime", TYPE_LONG);
+            writeColumn("seat_code", TYPE_INT);
+            writeColumn("tier", TYPE_BYTE);
+            writeColumn("price_cents", TYPE_INT);
+
+            List<Movie> movies = movieController.getAllMovies();
+            ensure(4);
+            buffer.putInt(movies.size());
+            for (Movie movie : movies) {
+                ensure(4);
+                buffer.putInt(movie.getId());
+                writeString(movie.getTitle());
+            }
+        }
+
+        @Override
+        void writeRow(Row row) throws IOException {
+            records[groupRows] = row.record;
+            events[groupRows] = row.event;
+            movieIds[groupRows] = row.movieId;
+            cinemaIds[groupRows] = row.cinemaId;
+            showtimes[groupRows] = row.showtime == null ? Long.MIN_VALUE : row.showtime.toEpochSecond(ZoneOffset.UTC);
+            seatCodes[groupRows] = row.seatCode;
+            tiers[groupRows] = row.tier == null ? -1 : (byte) row.tier.ordinal();
+            prices[groupRows] = row.priceCents;
+            rows++;
+            if (++groupRows == GROUP_ROWS) {
+                writeGroup();
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (groupRows > 0) {
+                writeGroup();
+            }
+            ensure(4);
+            buffer.putInt(0); // End of the row groups
+            super.finish();
+        }
+
+        private void writeGroup() throws IOException {
+            ensure(4);
+            buffer.putInt(groupRows);
+            writeLongs(records);
+            writeBytes(events);
+            writeInts(movieIds);
+            writeInts(cinemaIds);
+            writeLongs(showtimes);
+            writeInts(seatCodes);
+            writeBytes(tiers);
+            writeInts(prices);
+            groupRows = 0;
+        }
+
+        private void writeColumn(String name, byte type) throws IOException {
+            writeString(name);
+            ensure(1);
+            buffer.put(type);
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, Short.MAX_VALUE);
+            ensure(2 + length);
+            buffer.putShort((short) length);
+            buffer.put(bytes, 0, length);
+        }
+
+        private void writeLongs(long[] column) throws IOException {
+            for (int i = 0; i < groupRows; i++) {
+                ensure(8);
+                buffer.putLong(column[i]);
+            }
+        }
+
+        private void writeInts(int[] column) throws IOException {
+            for (int i = 0; i < groupRows; i++) {
+                ensure(4);
+                buffer.putInt(column[i]);
+            }
+        }
+
+        private void writeBytes(byte[] column) throws IOException {
+            ensure(groupRows);
+            buffer.put(column, 0, groupRows);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package controller;
+
+import model.Showing;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Rebuilds the running sales totals from the sold seats of every showing, using all
+ * cores, e.g. after a large import or a replay of the whole history.
+ *
+ * The showings are split in halves until a part has at most LEAF_SHOWINGS of them.
+ * Each part adds its showings up into totals of its own, so parts never share
+ * anything while they run. Parts are then merged pairwise, always the right half
+ * into the left one, so the result is the same however the work was scheduled.
+ */
+class ReportRebuilder extends RecursiveTask<ReportRebuilder.Totals> {
+    private static final long serialVersionUID = 1L;
+    private static final int LEAF_SHOWINGS = 256;
+
+    /**
+     * Totals built from part of the showings
+     */
+    static class Totals {
+        final ReportAggregates aggregates;
+        final SalesCube salesCube;
+
+        Totals(ReportAggregates aggregates, SalesCube salesCube) {
+            this.aggregates = aggregates;
+            this.salesCube = salesCube;
+        }
+    }
+
+    private final BookingController bookingController;
+    private final List<Showing> showings;
+    private final int from;
+    private final int to;
+
+    ReportRebuilder(BookingController bookingController, List<Showing> showings) {
+        this(bookingController, showings, 0, showings.size());
+    }
+
+    private ReportRebuilder(BookingController bookingController, List<Showing> showings, int from, int to) {
+        this.bookingController = bookingController;
+        this.showings = showings;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Totals compute() {
+        if (to - from <= LEAF_SHOWINGS) {
+            return addUp();
+        }
+
+        int middle = (from + to) >>> 1;
+        ReportRebuilder right = new ReportRebuilder(bookingController, showings, middle, to);
+        right.fork();
+        Totals left = new ReportRebuilder(bookingController, showings, from, middle).compute();
+        Totals rightTotals = right.join();
+
+        left.aggregates.addAll(rightTotals.aggregates);
+        left.salesCube.addAll(rightTotals.salesCube);
+        return left;
+    }
+
+    /**
+     * Adds up the sold seats of this part's showings
+     */
+    private Totals addUp() {
+        Totals totals = new Totals(new ReportAggregates(), new SalesCube(bookingController));
+        for (int i = from; i < to; i++) {
+            Showing showing = showings.get(i);
+            SeatChange sold = bookingController.getSoldSeats(showing);
+            if (sold != null) {
+                totals.aggregates.seatsSold(showing, sold);
+                totals.salesCube.seatsSold(showing, sold);
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,97 @@
+package controller;
+
+/**
+ * The rows of one report: a label and a value per movie or cinema, in display order.
+ * Never changed after it is built, so one series can be shared by the report cache,
+ * the Swing thread and any number of repaints.
+ */
+public final class ReportSeries {
+    /**
+     * What the values of a series measure
+     */
+    public enum Kind {
+        COUNT, MONEY, PERCENT
+    }
+
+    private final String reportType;
+    private final Kind kind;
+    private final String[] labels;
+    private final double[] values;
+    private final double maxValue;
+
+    ReportSeries(String reportType, Kind kind, String[] labels, double[] values) {
+        this.reportType = reportType;
+        this.kind = kind;
+        this.labels = labels;
+        this.values = values;
+
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        this.maxValue = max;
+    }
+
+    public String getReportType() {
+        return reportType;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public boolean isEmpty() {
+        return labels.length == 0;
+    }
+
+    public String getLabel(int row) {
+        return labels[row];
+    }
+
+    public double getValue(int row) {
+        return values[row];
+    }
+
+    /**
+     * Gets the largest value, or 0 if there is none above 0, e.g. to scale a chart
+     */
+    public double getMaxValue() {
+        return maxValue;
+    }
+
+    /**
+     * Gets the sum of the values
+     */
+    public double getTotal() {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Gets the mean of the values, or 0 for an empty series
+     */
+    public double getAverage() {
+        return values.length == 0 ? 0 : getTotal() / values.length;
+    }
+
+    /**
+     * Formats a value the way this kind of report shows it, e.g. "12", "450.00" or "37.5%"
+     */
+    public String formatValue(double value) {
+        switch (kind) {
+            case COUNT:
+                return String.valueOf(Math.round(value));
+            case MONEY:
+                return String.format("%.2f", value);
+            default:
+                return String.format("%.1f%%", value);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package controller;
+
+import model.HallLayout;
+import model.SeatTier;
+import model.Showing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tickets and revenue rolled up by cinema, movie, showtime hour and seat tier, so
+ * questions such as "tickets per hour of day" or "revenue by weekday per cinema" are
+ * answered without looking at a single booking.
+ *
+ * Every sale and cancellation adds to (or subtracts from) the counters of one cell
+ * per seat tier it touches. A cell's key packs its four coordinates into one long,
+ * and cells live in an open-addressing table of primitive arrays, so a cell costs
+ * 24 bytes and no objects. Hours are counted on the showtime's own clock (the same
+ * one the journal uses).
+ *
+ * A query scans the cells once, keeping those in its time range and filters and
+ * adding them up by one dimension. A year of showings in 20 halls is well under a
+ * million cells, a few milliseconds of scanning.
+ */
+public class SalesCube implements BookingListener {
+    /**
+     * Matches any cinema or movie in a query
+     */
+    public static final int ANY = -1;
+
+    /**
+     * What to add up
+     */
+    public enum Measure {
+        TICKETS, REVENUE_CENTS
+    }
+
+    /**
+     * What to group by. Keys of the results are: the cinema or movie id, the tier
+     * ordinal, the hour of day (0-23), the ISO day of week (1 is Monday), the epoch
+     * day (LocalDate.ofEpochDay) or the epoch day of the week's Monday.
+     */
+    public enum Dimension {
+        CINEMA, MOVIE, TIER, HOUR_OF_DAY, DAY_OF_WEEK, DAY, WEEK
+    }
+
+    // Key layout: [hour:24][movie:22][cinema:16][tier:2]; hours stay below 2^23, so keys are never negative
+    private static final int TIER_BITS = 2;
+    private static final int CINEMA_BITS = 16;
+    private static final int MOVIE_BITS = 22;
+    private static final int CINEMA_SHIFT = TIER_BITS;
+    private static final int MOVIE_SHIFT = CINEMA_SHIFT + CINEMA_BITS;
+    private static final int HOUR_SHIFT = MOVIE_SHIFT + MOVIE_BITS;
+    private static final long MAX_HOUR = (1L << 23) - 1; // About the year 2926
+    private static final long EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final SeatTier[] TIERS = SeatTier.values();
+
+    private final BookingController bookingController;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] keys;         // Guarded by lock; EMPTY marks a free slot
+    private long[] tickets;      // Guarded by lock
+    private long[] revenueCents; // Guarded by lock
+    private int cellCount;       // Guarded by lock
+
+    public SalesCube(BookingController bookingController) {
+        this.bookingController = bookingController;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void seatsSold(Showing showing, SeatChange change) {
+        add(showing, change, 1);
+    }
+
+    @Override
+    public void seatsReleased(Showing showing, SeatChange change) {
+        add(showing, change, -1);
+    }
+
+    /**
+     * Adds up a measure over showtimes in [from, to) by one dimension. The range works
+     * on whole hours: an hour of showtimes counts if it starts in the range. from and
+     * to may be null for an open range, cinemaId and movieId may be ANY, and tier may
+     * be null for every tier. Returns the totals by dimension key in key order.
+     */
+    public SortedMap<Integer, Long> groupBy(Dimension dimension, Measure measure, LocalDateTime from, LocalDateTime to,
+                                            int cinemaId, int movieId, SeatTier tier) {
+        long fromHour = from == null ? Long.MIN_VALUE : toCeilingHour(from);
+        long toHour = to == null ? Long.MAX_VALUE : toCeilingHour(to);
+        SortedMap<Integer, Long> totals = new TreeMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < keys.length; slot++) {
+                long key = keys[slot];
+                if (key == EMPTY || !matches(key, fromHour, toHour, cinemaId, movieId, tier)) {
+                    continue;
+                }
+
+                long value = measure == Measure.TICKETS ? tickets[slot] : revenueCents[slot];
+                totals.merge(getDimensionKey(key, dimension), value, Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return totals;
+    }
+
+    /**
+     * Adds up a measure over showtimes in [from, to), with the same filters as groupBy
+     */
+    public long getTotal(Measure measure, LocalDateTime from, LocalDateTime to, int cinemaId, int movieId, SeatTier tier) {
+        long fromHour = from == null ? Long.MIN_VALUE : toCeilingHour(from);
+        long toHour = to == null ? Long.MAX_VALUE : toCeilingHour(to);
+        long total = 0;
+
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < keys.length; slot++) {
+                long key = keys[slot];
+                if (key != EMPTY && matches(key, fromHour, toHour, cinemaId, movieId, tier)) {
+                    total += measure == Measure.TICKETS ? tickets[slot] : revenueCents[slot];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of cells, i.e. distinct (cinema, movie, hour, tier) combinations sold
+     */
+    public int getCellCount() {
+        lock.readLock().lock();
+        try {
+            return cellCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the cells of another cube to this one, in the other cube's slot order
+     */
+    void addAll(SalesCube other) {
+        lock.writeLock().lock();
+        other.lock.readLock().lock();
+        try {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != EMPTY) {
+                    int slot = findOrAddSlot(other.keys[i]);
+                    tickets[slot] += other.tickets[i];
+                    revenueCents[slot] += other.revenueCents[i];
+                }
+            }
+        } finally {
+            other.lock.readLock().unlock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces every cell with the cells of a cube that was rebuilt from scratch. The
+     * rebuilt cube must not be used afterwards, since its arrays now belong to this one.
+     */
+    void replaceWith(SalesCube rebuilt) {
+        rebuilt.lock.readLock().lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                keys = rebuilt.keys;
+                tickets = rebuilt.tickets;
+                revenueCents = rebuilt.revenueCents;
+                cellCount = rebuilt.cellCount;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilt.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a change to the cells of its showing, one cell per tier the seats are in
+     */
+    private void add(Showing showing, SeatChange change, int sign) {
+        if (change.isEmpty() || showing.getStartTime() == null) {
+            return;
+        }
+
+        long hour = toHour(showing.getStartTime());
+        if (hour < 0 || hour > MAX_HOUR || showing.getCinemaId() >>> CINEMA_BITS != 0
+                || showing.getMovieId() >>> MOVIE_BITS != 0) {
+            System.err.println("Sales outside the range of the sales cube were not counted: " + showing);
+            return;
+        }
+
+        // Sum per tier first, so the lock is taken once and each cell is touched once
+        HallLayout layout = bookingController.getHallLayout(showing);
+        long[] tierTickets = new long[TIERS.length];
+        long[] tierRevenue = new long[TIERS.length];
+        int[] seats = change.getSeats();
+        int[] prices = change.getPriceCents();
+        for (int i = 0; i < seats.length; i++) {
+            int tier = layout.getTier(seats[i]).ordinal();
+            tierTickets[tier]++;
+            tierRevenue[tier] += prices[i];
+        }
+
+        long baseKey = hour << HOUR_SHIFT | (long) showing.getMovieId() << MOVIE_SHIFT
+                | (long) showing.getCinemaId() << CINEMA_SHIFT;
+        lock.writeLock().lock();
+        try {
+            for (int tier = 0; tier < TIERS.length; tier++) {
+                if (tierTickets[tier] != 0) {
+                    int slot = findOrAddSlot(baseKey | tier);
+                    tickets[slot] += sign * tierTickets[tier];
+                    revenueCents[slot] += sign * tierRevenue[tier];
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean matches(long key, long fromHour, long toHour, int cinemaId, int movieId, SeatTier tier) {
+        long hour = key >>> HOUR_SHIFT;
+        return hour >= fromHour && hour < toHour
+                && (cinemaId == ANY || getCinemaId(key) == cinemaId)
+                && (movieId == ANY || getMovieId(key) == movieId)
+                && (tier == null || getTierOrdinal(key) == tier.ordinal());
+    }
+
+    private static int getDimensionKey(long key, Dimension dimension) {
+        long hour = key >>> HOUR_SHIFT;
+        long epochDay = Math.floorDiv(hour, 24);
+        switch (dimension) {
+            case CINEMA:
+                return getCinemaId(key);
+            case MOVIE:
+                return getMovieId(key);
+            case TIER:
+                return getTierOrdinal(key);
+            case HOUR_OF_DAY:
+                return (int) Math.floorMod(hour, 24); // floorMod(long, long) on JDK 8
+            case DAY_OF_WEEK:
+                return getDayOfWeek(epochDay);
+            case DAY:
+                return (int) epochDay;
+            default:
+                return (int) (epochDay - getDayOfWeek(epochDay) + 1); // Monday of the week
+        }
+    }
+
+    /**
+     * Gets the ISO day of week of an epoch day (1970-01-01 was a Thursday, day 4)
+     */
+    private static int getDayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7) + 1;
+    }
+
+    private static int getCinemaId(long key) {
+        return (int) (key >>> CINEMA_SHIFT & (1L << CINEMA_BITS) - 1);
+    }
+
+    private static int getMovieId(long key) {
+        return (int) (key >>> MOVIE_SHIFT & (1L << MOVIE_BITS) - 1);
+    }
+
+    private static int getTierOrdinal(long key) {
+        return (int) (key & (1L << TIER_BITS) - 1);
+    }
+
+    private static long toHour(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 3600);
+    }
+
+    /**
+     * Gets the first whole hour that starts at or after a time
+     */
+    private static long toCeilingHour(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC) + 3599, 3600);
+    }
+
+    /**
+     * Finds the slot of a key, adding an empty cell for it if there is none. Called
+     * with the write lock held.
+     */
+    private int findOrAddSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if ((cellCount + 1) * 4 > keys.length * 3) { // Keep the table under 75% full
+            grow();
+            return findOrAddSlot(key);
+        }
+        keys[slot] = key;
+        cellCount++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldTickets = tickets;
+        long[] oldRevenue = revenueCents;
+        allocate(oldKeys.length * 2);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) {
+                continue;
+            }
+            int slot = mix(oldKeys[i]) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            tickets[slot] = oldTickets[i];
+            revenueCents[slot] = oldRevenue[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        tickets = new long[capacity];
+        revenueCents = new long[capacity];
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+}
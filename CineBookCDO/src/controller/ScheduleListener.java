@@ -0,0 +1,20 @@
+package controller;
+
+import model.Showing;
+
+/**
+ * Notified by the ShowtimeSchedule whenever a showing is added to or removed from it.
+ * Listeners are called on the thread that changed the schedule, while the schedule is
+ * locked, and should return quickly.
+ */
+public interface ScheduleListener {
+    /**
+     * Called after a showing has been added to the schedule
+     */
+    void showingAdded(Showing showing);
+
+    /**
+     * Called after a showing has been removed from the schedule
+     */
+    void showingRemoved(Showing showing);
+}
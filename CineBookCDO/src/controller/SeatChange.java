@@ -0,0 +1,50 @@
+package controller;
+
+/**
+ * Seats that were sold or released by one operation, with the price each seat
+ * was sold at. Both arrays are in the same order.
+ */
+public final class SeatChange {
+    static final SeatChange NONE = new SeatChange(new int[0], new int[0]);
+
+    private final int[] seats;
+    private final int[] priceCents;
+
+    SeatChange(int[] seats, int[] priceCents) {
+        this.seats = seats;
+        this.priceCents = priceCents;
+    }
+
+    /**
+     * Gets the bit indices of the seats (row * columns + column)
+     */
+    public int[] getSeats() {
+        return seats;
+    }
+
+    /**
+     * Gets the price in centavos each seat was sold at
+     */
+    public int[] getPriceCents() {
+        return priceCents;
+    }
+
+    public int size() {
+        return seats.length;
+    }
+
+    public boolean isEmpty() {
+        return seats.length == 0;
+    }
+
+    /**
+     * Gets the sum of the seat prices in centavos
+     */
+    public long getAmountCents() {
+        long amount = 0;
+        for (int price : priceCents) {
+            amount += price;
+        }
+        return amount;
+    }
+}
@@ -0,0 +1,77 @@
+package controller;
+
+import model.Showing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publishes seat changes per showing to whoever has that showing open, so seat maps
+ * stay current without reloading the whole showing.
+ *
+ * Each change lists only the seats that changed, as bitmaps over the showing's grid
+ * indices: which seats changed, and which of those are taken now (held, sold or blocked).
+ * Listeners are called on the thread that made the change, while the showing is
+ * locked, so changes for one showing arrive in order; they must only record the
+ * change and return (e.g. hand it to the Swing thread). Showings nobody listens to
+ * cost one map lookup per change. The arrays passed to listeners are shared and must
+ * not be changed.
+ */
+public class SeatChangeFeed {
+    /**
+     * Told about seat changes in a showing
+     */
+    public interface Listener {
+        void seatsChanged(Showing showing, long[] changedSeats, long[] takenSeats);
+    }
+
+    private final ShowingRegistry showingRegistry;
+    private final Map<Integer, List<Listener>> listenersByShowing; // Map<showing handle, listeners>
+
+    public SeatChangeFeed(ShowingRegistry showingRegistry) {
+        this.showingRegistry = showingRegistry;
+        this.listenersByShowing = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Starts sending a showing's seat changes to a listener
+     */
+    public void subscribe(Showing showing, Listener listener) {
+        listenersByShowing.computeIfAbsent(showing.getHandle(), handle -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Stops sending a showing's seat changes to a listener
+     */
+    public void unsubscribe(Showing showing, Listener listener) {
+        listenersByShowing.computeIfPresent(showing.getHandle(), (handle, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Checks whether anyone listens to a showing, so publishers can skip building the change
+     */
+    boolean hasListeners(int showingHandle) {
+        return listenersByShowing.containsKey(showingHandle);
+    }
+
+    /**
+     * Sends a change to the showing's listeners. The arrays are shared by all of them
+     * and must not be changed.
+     */
+    void publish(int showingHandle, long[] changedSeats, long[] takenSeats) {
+        List<Listener> listeners = listenersByShowing.get(showingHandle);
+        if (listeners == null) {
+            return;
+        }
+
+        Showing showing = showingRegistry.getByHandle(showingHandle);
+        for (Listener listener : listeners) {
+            listener.seatsChanged(showing, changedSeats, takenSeats);
+        }
+    }
+}
@@ -0,0 +1,671 @@
+package controller;
+
+import model.HallLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Keeps track of booked seats for every showing using one bit per seat.
+ * Each showing uses the layout of its hall, and a seat's bit is its grid index in
+ * that layout (row * columns + column), so gaps and aisles are bits that are never set.
+ * Bitmaps are stored in an array indexed by the showing's handle.
+ *
+ * Each showing has three bitmaps: "taken" seats (held, sold or blocked), "sold"
+ * seats and "blocked" seats. A held seat is taken but neither sold nor blocked, so
+ * nobody else can book it until the hold is confirmed or released. Blocked seats
+ * are kept out of sale by staff (e.g. a row for a private event) and earn nothing.
+ *
+ * The price of every sold seat is recorded when it is sold, using the seat's tier in the layout.
+ * Methods that sell or release seats return the seats that actually changed together
+ * with those prices, so callers can keep counters and revenue up to date without rescanning.
+ *
+ * Every change to the taken seats is published to the change feed, if there is one,
+ * while the showing is still locked.
+ *
+ * The class is thread-safe. Each showing's seats are their own lock, so bookings
+ * for one busy showing never wait on bookings for other showings.
+ */
+public class SeatInventory {
+    private static final int BITS_PER_WORD = 64;
+
+    private final IntFunction<HallLayout> layoutForShowing; // Showing handle -> layout of its hall
+    private final SeatChangeFeed changeFeed; // Null when changes are not published
+    private volatile ShowingSeats[] showingSeats; // Indexed by showing handle; null until first used
+
+    public SeatInventory(IntFunction<HallLayout> layoutForShowing) {
+        this(layoutForShowing, null);
+    }
+
+    public SeatInventory(IntFunction<HallLayout> layoutForShowing, SeatChangeFeed changeFeed) {
+        this.layoutForShowing = layoutForShowing;
+        this.changeFeed = changeFeed;
+        this.showingSeats = new ShowingSeats[16];
+    }
+
+    /**
+     * Gets the seat layout used by a showing
+     */
+    public HallLayout getLayout(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        return showing != null ? showing.layout : layoutForShowing.apply(showingHandle);
+    }
+
+    /**
+     * Gets the number of seats in a showing
+     */
+    public int getCapacity(int showingHandle) {
+        return getLayout(showingHandle).getCapacity();
+    }
+
+    /**
+     * Checks that none of the seats are held or sold. Unknown seat ids are never available.
+     */
+    public boolean areAvailable(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        if (mask == null) {
+            return false;
+        }
+
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return true;
+        }
+
+        synchronized (showing) {
+            return !intersects(showing.taken, mask);
+        }
+    }
+
+    /**
+     * Checks whether all of the seats are sold (not just held or blocked)
+     */
+    public boolean areSold(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        if (mask == null) {
+            return false;
+        }
+
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return seats.isEmpty();
+        }
+
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                if ((showing.sold[i] & mask[i]) != mask[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sells all of the seats, or none of them if any seat is already taken or unknown.
+     * Returns the seats sold, or null if nothing was sold.
+     */
+    public SeatChange reserve(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        if (mask == null) {
+            return null;
+        }
+
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            showing = createSeats(showingHandle);
+        }
+
+        // Check and set under the same lock so two callers can never both get a seat
+        synchronized (showing) {
+            if (intersects(showing.taken, mask)) {
+                return null;
+            }
+            return sell(showing, mask, null);
+        }
+    }
+
+    /**
+     * Holds all of the seats without selling them, or none of them if any seat is
+     * already taken or unknown. Returns the seats held, or null if nothing was held.
+     */
+    public int[] hold(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        if (mask == null) {
+            return null;
+        }
+
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            showing = createSeats(showingHandle);
+        }
+
+        synchronized (showing) {
+            if (intersects(showing.taken, mask)) {
+                return null;
+            }
+
+            for (int i = 0; i < mask.length; i++) {
+                showing.taken[i] |= mask[i];
+            }
+            publish(showing, mask);
+        }
+        return toIndices(mask);
+    }
+
+    /**
+     * Turns held seats into sold seats. Returns null (and changes nothing) if any
+     * of the seats is no longer held.
+     */
+    public SeatChange confirm(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        ShowingSeats showing = getSeats(showingHandle);
+        if (mask == null || showing == null) {
+            return null;
+        }
+
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                long held = showing.taken[i] & ~showing.sold[i] & ~showing.blocked[i];
+                if ((mask[i] & ~held) != 0) {
+                    return null;
+                }
+            }
+            return sell(showing, mask, null);
+        }
+    }
+
+    /**
+     * Releases held seats. Seats that have been sold in the meantime are left alone.
+     * Returns the seats released.
+     */
+    public int[] releaseHold(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        ShowingSeats showing = getSeats(showingHandle);
+        if (mask == null || showing == null) {
+            return new int[0];
+        }
+
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= showing.taken[i] & ~showing.sold[i] & ~showing.blocked[i];
+                showing.taken[i] &= ~mask[i];
+            }
+            publish(showing, mask);
+        }
+        return toIndices(mask);
+    }
+
+    /**
+     * Releases sold seats and returns the ones that were actually sold
+     */
+    public SeatChange release(int showingHandle, List<String> seats) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return SeatChange.NONE;
+        }
+
+        long[] mask = new long[showing.taken.length];
+        for (String seat : seats) {
+            int index = showing.layout.toSeatIndex(seat);
+            if (index >= 0) {
+                mask[index / BITS_PER_WORD] |= 1L << index;
+            }
+        }
+
+        synchronized (showing) {
+            return unsell(showing, mask);
+        }
+    }
+
+    /**
+     * Sells released seats again at the prices they were sold at, e.g. to undo a
+     * cancellation that could not be saved. Seats taken in the meantime are skipped.
+     * Returns the seats sold again.
+     */
+    public SeatChange resell(int showingHandle, SeatChange released) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null || released.isEmpty()) {
+            return SeatChange.NONE;
+        }
+
+        long[] mask = new long[showing.taken.length];
+        int[] priceTable = new int[showing.layout.getGridSize()];
+        int[] seats = released.getSeats();
+        int[] prices = released.getPriceCents();
+        for (int i = 0; i < seats.length; i++) {
+            mask[seats[i] / BITS_PER_WORD] |= 1L << seats[i];
+            priceTable[seats[i]] = prices[i];
+        }
+
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= ~showing.taken[i];
+            }
+            return sell(showing, mask, priceTable);
+        }
+    }
+
+    /**
+     * Gets the lock that guards a showing's seats, allocating the seats if needed. The
+     * methods of this class can be called while holding it; holding it keeps every other
+     * change to the showing out, e.g. while a change is written to the journal.
+     */
+    public Object getLock(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        return showing != null ? showing : createSeats(showingHandle);
+    }
+
+    /**
+     * Marks seats as sold whatever their current state (a blocked seat stops being blocked).
+     * Used when restoring saved data,
+     * where applying the same record twice must give the same result.
+     */
+    public SeatChange forceSell(int showingHandle, List<String> seats) {
+        long[] mask = toMask(getLayout(showingHandle), seats);
+        if (mask == null) {
+            return SeatChange.NONE;
+        }
+
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            showing = createSeats(showingHandle);
+        }
+
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= ~showing.sold[i]; // Only report seats that were not sold already
+            }
+            return sell(showing, mask, null);
+        }
+    }
+
+    /**
+     * Gets the sold seats of a showing with their prices, or null if it has never been used
+     */
+    public SeatChange getSold(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return null;
+        }
+
+        synchronized (showing) {
+            int[] seats = toIndices(showing.sold);
+            int[] prices = new int[seats.length];
+            for (int i = 0; i < seats.length; i++) {
+                prices[i] = showing.priceCents[seats[i]];
+            }
+            return new SeatChange(seats, prices);
+        }
+    }
+
+    /**
+     * Replaces the sold seats of a showing with saved ones. Holds are kept.
+     * Returns the seats released and the seats sold by the change, in that order;
+     * a seat whose saved price differs from its current one appears in both.
+     */
+    public SeatChange[] restoreSold(int showingHandle, int[] seats, int[] priceCents) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            showing = createSeats(showingHandle);
+        }
+
+        long[] restored = new long[showing.taken.length];
+        int[] restoredPrices = new int[showing.layout.getGridSize()];
+        for (int i = 0; i < seats.length; i++) {
+            if (showing.layout.isSeat(seats[i])) {
+                restored[seats[i] / BITS_PER_WORD] |= 1L << seats[i];
+                restoredPrices[seats[i]] = priceCents[i];
+            }
+        }
+
+        synchronized (showing) {
+            // Seats sold both now and in the saved state at the same price are left alone
+            long[] dropped = new long[restored.length];
+            for (int i = 0; i < restored.length; i++) {
+                dropped[i] = showing.sold[i] & ~restored[i];
+                long word = showing.sold[i] & restored[i];
+                while (word != 0) {
+                    int index = i * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+                    if (showing.priceCents[index] == restoredPrices[index]) {
+                        restored[i] &= ~(1L << index);
+                    } else {
+                        dropped[i] |= 1L << index;
+                    }
+                    word &= word - 1;
+                }
+            }
+            return new SeatChange[] { unsell(showing, dropped), sell(showing, restored, restoredPrices) };
+        }
+    }
+
+    /**
+     * Blocks the given seats (grid indices) that are free. Seats that are held or sold
+     * are left alone. Returns the seats that were blocked.
+     */
+    public int[] block(int showingHandle, int[] seats) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            showing = createSeats(showingHandle);
+        }
+
+        long[] mask = toMask(showing.layout, seats);
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= ~showing.taken[i];
+                showing.taken[i] |= mask[i];
+                showing.blocked[i] |= mask[i];
+            }
+            publish(showing, mask);
+        }
+        return toIndices(mask);
+    }
+
+    /**
+     * Unblocks the given seats (grid indices). Returns the seats that were blocked.
+     */
+    public int[] unblock(int showingHandle, int[] seats) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return new int[0];
+        }
+
+        long[] mask = toMask(showing.layout, seats);
+        synchronized (showing) {
+            for (int i = 0; i < mask.length; i++) {
+                mask[i] &= showing.blocked[i];
+                showing.blocked[i] &= ~mask[i];
+                showing.taken[i] &= ~mask[i];
+            }
+            publish(showing, mask);
+        }
+        return toIndices(mask);
+    }
+
+    /**
+     * Makes exactly the given seats (grid indices) blocked: other blocked seats are
+     * unblocked, and seats that are held or sold are not blocked. Used to copy block-outs
+     * between showings and when restoring saved data.
+     */
+    public void setBlocked(int showingHandle, int[] seats) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            if (seats.length == 0) {
+                return;
+            }
+            showing = createSeats(showingHandle);
+        }
+
+        long[] mask = toMask(showing.layout, seats);
+        synchronized (showing) {
+            long[] changed = new long[mask.length];
+            for (int i = 0; i < mask.length; i++) {
+                long bookedOrHeld = showing.taken[i] & ~showing.blocked[i];
+                long taken = bookedOrHeld | (mask[i] & ~bookedOrHeld);
+                changed[i] = showing.taken[i] ^ taken;
+                showing.blocked[i] = mask[i] & ~bookedOrHeld;
+                showing.taken[i] = taken;
+            }
+            publish(showing, changed);
+        }
+    }
+
+    /**
+     * Gets the blocked seats of a showing as grid indices
+     */
+    public int[] getBlocked(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return new int[0];
+        }
+
+        synchronized (showing) {
+            return toIndices(showing.blocked);
+        }
+    }
+
+    /**
+     * Releases every sold and blocked seat of a showing in one step. Held seats are
+     * left to their holds. Returns the sold seats that were released, with their prices.
+     */
+    public SeatChange releaseAll(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return SeatChange.NONE;
+        }
+
+        synchronized (showing) {
+            long[] unblocked = showing.blocked.clone();
+            for (int i = 0; i < showing.blocked.length; i++) {
+                showing.taken[i] &= ~showing.blocked[i];
+                showing.blocked[i] = 0;
+            }
+            publish(showing, unblocked);
+            return unsell(showing, showing.sold.clone());
+        }
+    }
+
+    /**
+     * Gets the number of sold seats for a showing
+     */
+    public int getBookedCount(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return 0;
+        }
+
+        int count = 0;
+        synchronized (showing) {
+            for (long word : showing.sold) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the ids of all seats that are neither held nor sold, in seat order
+     */
+    public List<String> getAvailableSeats(int showingHandle) {
+        HallLayout layout = getLayout(showingHandle);
+        long[] taken = copyTaken(showingHandle);
+        List<String> available = new ArrayList<>(layout.getCapacity());
+
+        for (int index = 0; index < layout.getGridSize(); index++) {
+            if (layout.isSeat(index) && (taken[index / BITS_PER_WORD] & (1L << index)) == 0) {
+                available.add(layout.getSeatId(index));
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Marks the seats in the mask as sold, recording their prices. A null price table
+     * means the current tier prices. Must be called with the showing's lock held.
+     */
+    private SeatChange sell(ShowingSeats showing, long[] mask, int[] priceTable) {
+        int[] seats = toIndices(mask);
+        int[] prices = new int[seats.length];
+        for (int i = 0; i < seats.length; i++) {
+            int index = seats[i];
+            prices[i] = priceTable == null ? showing.layout.getTier(index).getPriceCents() : priceTable[index];
+            showing.priceCents[index] = prices[i];
+        }
+
+        for (int i = 0; i < mask.length; i++) {
+            showing.taken[i] |= mask[i];
+            showing.sold[i] |= mask[i];
+            showing.blocked[i] &= ~mask[i];
+        }
+        publish(showing, mask);
+        return new SeatChange(seats, prices);
+    }
+
+    /**
+     * Releases the sold seats in the mask, returning them with the prices they were sold at.
+     * Must be called with the showing's lock held.
+     */
+    private SeatChange unsell(ShowingSeats showing, long[] mask) {
+        for (int i = 0; i < mask.length; i++) {
+            mask[i] &= showing.sold[i];
+            showing.sold[i] &= ~mask[i];
+            showing.taken[i] &= ~mask[i];
+        }
+        publish(showing, mask);
+
+        int[] seats = toIndices(mask);
+        int[] prices = new int[seats.length];
+        for (int i = 0; i < seats.length; i++) {
+            prices[i] = showing.priceCents[seats[i]];
+            showing.priceCents[seats[i]] = 0;
+        }
+        return new SeatChange(seats, prices);
+    }
+
+    /**
+     * Sends the seats in the mask, with their current state, to the change feed.
+     * Must be called with the showing's lock held, so changes are published in order.
+     */
+    private void publish(ShowingSeats showing, long[] changed) {
+        if (changeFeed == null || !changeFeed.hasListeners(showing.handle)) {
+            return;
+        }
+
+        long[] takenNow = new long[changed.length];
+        boolean anyChanged = false;
+        for (int i = 0; i < changed.length; i++) {
+            takenNow[i] = showing.taken[i] & changed[i];
+            anyChanged |= changed[i] != 0;
+        }
+        if (anyChanged) {
+            changeFeed.publish(showing.handle, changed.clone(), takenNow);
+        }
+    }
+
+    /**
+     * Gets the seats for a showing, or null if the showing has not been used yet
+     */
+    private ShowingSeats getSeats(int showingHandle) {
+        ShowingSeats[] table = showingSeats;
+        return showingHandle < table.length ? table[showingHandle] : null;
+    }
+
+    /**
+     * Gets a consistent copy of a showing's taken bitmap, one bit per grid index of its
+     * layout (all zeros if nothing is taken)
+     */
+    public long[] copyTaken(int showingHandle) {
+        ShowingSeats showing = getSeats(showingHandle);
+        if (showing == null) {
+            return new long[toWordCount(getLayout(showingHandle))];
+        }
+
+        synchronized (showing) {
+            return showing.taken.clone();
+        }
+    }
+
+    /**
+     * Allocates the seats for a showing, growing the handle table if needed.
+     * Only the first use of a showing takes this table-wide lock.
+     */
+    private synchronized ShowingSeats createSeats(int showingHandle) {
+        ShowingSeats[] table = showingSeats;
+        if (showingHandle < table.length && table[showingHandle] != null) {
+            return table[showingHandle]; // Another thread created it first
+        }
+
+        // Copy on write so readers never see a half-filled table
+        int newLength = showingHandle < table.length ? table.length : Math.max(showingHandle + 1, table.length * 2);
+        ShowingSeats[] newTable = Arrays.copyOf(table, newLength);
+        ShowingSeats seats = new ShowingSeats(showingHandle, layoutForShowing.apply(showingHandle));
+        newTable[showingHandle] = seats;
+        showingSeats = newTable;
+        return seats;
+    }
+
+    /**
+     * Builds a bitmap of the requested seats, or null if any seat id is invalid
+     */
+    private static long[] toMask(HallLayout layout, List<String> seats) {
+        long[] mask = new long[toWordCount(layout)];
+        for (String seat : seats) {
+            int index = layout.toSeatIndex(seat);
+            if (index < 0) {
+                return null;
+            }
+            mask[index / BITS_PER_WORD] |= 1L << index;
+        }
+        return mask;
+    }
+
+    /**
+     * Lists the bit indices that are set in a bitmap
+     */
+    static int[] toIndices(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+
+        int[] indices = new int[count];
+        int n = 0;
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            while (word != 0) {
+                indices[n++] = i * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Builds a bitmap of the given grid indices, skipping any that are not seats
+     */
+    private static long[] toMask(HallLayout layout, int[] seats) {
+        long[] mask = new long[toWordCount(layout)];
+        for (int index : seats) {
+            if (layout.isSeat(index)) {
+                mask[index / BITS_PER_WORD] |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    private static int toWordCount(HallLayout layout) {
+        return (layout.getGridSize() + BITS_PER_WORD - 1) / BITS_PER_WORD;
+    }
+
+    private static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Seat bitmaps for one showing. Guarded by the object's own monitor.
+     */
+    private static class ShowingSeats {
+        final long[] taken; // Held, sold or blocked
+        final long[] sold;
+        final long[] blocked;
+        final int[] priceCents; // Price each sold seat was sold at, indexed by seat
+        final HallLayout layout;
+        final int handle;
+
+        ShowingSeats(int handle, HallLayout layout) {
+            this.handle = handle;
+            this.layout = layout;
+            this.taken = new long[toWordCount(layout)];
+            this.sold = new long[toWordCount(layout)];
+            this.blocked = new long[toWordCount(layout)];
+            this.priceCents = new int[layout.getGridSize()];
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package controller;
+
+import model.Session;
+import model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of logged-in sessions by opaque random tokens.
+ *
+ * Sessions live in a concurrent map, so any number of them can be used at once
+ * without a global lock. A session that has not been used for the idle timeout
+ * is ended the next time someone looks it up, and idle sessions nobody looks up
+ * again are swept out at most once a minute while new sessions are created.
+ */
+public class SessionManager {
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000; // 30 minutes
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long SWEEP_INTERVAL_MILLIS = 60 * 1000;
+
+    private final Map<String, Session> sessions; // Map<token, session>
+    private final SecureRandom random;
+    private final AtomicLong lastSweepMillis;
+    private volatile long idleTimeoutMillis;
+    private volatile Consumer<Session> sessionEndListener; // Null when nobody needs to know
+
+    public SessionManager() {
+        this.sessions = new ConcurrentHashMap<>();
+        this.random = new SecureRandom();
+        this.lastSweepMillis = new AtomicLong(System.currentTimeMillis());
+        this.idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Sets how long a session may go unused before it is ended
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Sets a callback run whenever a session ends, e.g. to release the seats of its booking
+     */
+    public void setSessionEndListener(Consumer<Session> listener) {
+        this.sessionEndListener = listener;
+    }
+
+    /**
+     * Starts a new session for a user
+     */
+    public Session create(User user) {
+        long now = System.currentTimeMillis();
+        sweepIfDue(now);
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user, now);
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+
+    /**
+     * Gets a session and marks it as used, or returns null if the token is unknown or the session has expired
+     */
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (session.isIdle(now, idleTimeoutMillis)) {
+            end(session);
+            return null;
+        }
+
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Ends a session. Returns false if there was no such session.
+     */
+    public boolean end(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && end(session);
+    }
+
+    /**
+     * Ends all sessions of a user, e.g. when the user is removed
+     */
+    public void endAll(String username) {
+        for (Session session : sessions.values()) {
+            if (session.getUser().getUsername().equals(username)) {
+                end(session);
+            }
+        }
+    }
+
+    /**
+     * Ends every session that has been idle for too long. Returns the number ended.
+     */
+    public int evictIdleSessions() {
+        long now = System.currentTimeMillis();
+        lastSweepMillis.set(now);
+
+        int evicted = 0;
+        for (Session session : sessions.values()) {
+            if (session.isIdle(now, idleTimeoutMillis) && end(session)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Gets the number of sessions, including idle ones not swept yet
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Removes a session; only the thread that actually removes it notifies the listener
+     */
+    private boolean end(Session session) {
+        if (!sessions.remove(session.getToken(), session)) {
+            return false;
+        }
+
+        Consumer<Session> listener = sessionEndListener;
+        if (listener != null) {
+            listener.accept(session);
+        }
+        return true;
+    }
+
+    /**
+     * Sweeps idle sessions if the last sweep was long enough ago. Only one caller wins the sweep.
+     */
+    private void sweepIfDue(long now) {
+        long last = lastSweepMillis.get();
+        if (now - last >= SWEEP_INTERVAL_MILLIS && lastSweepMillis.compareAndSet(last, now)) {
+            evictIdleSessions();
+        }
+    }
+}
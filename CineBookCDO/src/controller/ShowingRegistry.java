@@ -0,0 +1,97 @@
+package controller;
+
+import model.Showing;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out one Showing per (movie, cinema, start time) and numbers them 0, 1, 2, ...
+ * so that per-showing data can be stored in plain arrays indexed by handle.
+ * Lookups are lock-free; only registering a new showing takes a lock.
+ */
+public class ShowingRegistry {
+    private final Map<Showing, Showing> showings; // Lookup key -> registered showing
+    private volatile Showing[] showingsByHandle;
+    private volatile int size;
+
+    public ShowingRegistry() {
+        this.showings = new ConcurrentHashMap<>();
+        this.showingsByHandle = new Showing[16];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the showing for a movie, cinema and start time, registering it if it is new
+     */
+    public Showing getOrCreate(int movieId, int cinemaId, LocalDateTime startTime) {
+        Showing key = new Showing(-1, movieId, cinemaId, startTime);
+        Showing showing = showings.get(key);
+        if (showing != null) {
+            return showing;
+        }
+        return register(key);
+    }
+
+    /**
+     * Gets an already registered showing, or null if it has never been used
+     */
+    public Showing find(int movieId, int cinemaId, LocalDateTime startTime) {
+        return showings.get(new Showing(-1, movieId, cinemaId, startTime));
+    }
+
+    /**
+     * Gets a showing by its handle
+     */
+    public Showing getByHandle(int handle) {
+        Showing[] table = showingsByHandle;
+        if (handle < 0 || handle >= table.length) {
+            return null;
+        }
+        return table[handle];
+    }
+
+    /**
+     * Gets the number of registered showings (handles run from 0 to size - 1)
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets all registered showings in handle order
+     */
+    public List<Showing> getAllShowings() {
+        int count = size;
+        Showing[] table = showingsByHandle;
+        return new ArrayList<>(Arrays.asList(table).subList(0, count));
+    }
+
+    /**
+     * Registers a new showing, unless another thread registered it first
+     */
+    private synchronized Showing register(Showing key) {
+        Showing existing = showings.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        int handle = size;
+        Showing showing = new Showing(handle, key.getMovieId(), key.getCinemaId(), key.getStartTime());
+
+        Showing[] table = showingsByHandle;
+        if (handle >= table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        table[handle] = showing;
+        showingsByHandle = table;
+        size = handle + 1;
+
+        showings.put(showing, showing);
+        return showing;
+    }
+}
@@ -0,0 +1,285 @@
+package controller;
+
+import model.Showing;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * All scheduled showings, sorted by start time, with the same ordering kept per movie
+ * and per cinema. Range queries ("what starts between 18:00 and 21:00"), "next N
+ * showings" and counts per movie are logarithmic lookups instead of scans of every
+ * movie's showtimes.
+ *
+ * The sets are concurrent skip lists, so readers never lock. Changes are synchronized
+ * so the three indexes always agree, and listeners are told about every showing that
+ * was added or removed.
+ */
+public class ShowtimeSchedule {
+    /**
+     * Orders showings by start time, then movie, then cinema
+     */
+    public static final Comparator<Showing> BY_START_TIME = Comparator.comparing(Showing::getStartTime)
+            .thenComparingInt(Showing::getMovieId)
+            .thenComparingInt(Showing::getCinemaId);
+
+    private volatile NavigableSet<Showing> showings;
+    private final Map<Integer, NavigableSet<Showing>> showingsByMovie;
+    private final Map<Integer, NavigableSet<Showing>> showingsByCinema;
+    private final List<ScheduleListener> listeners;
+
+    public ShowtimeSchedule() {
+        this.showings = new ConcurrentSkipListSet<>(BY_START_TIME);
+        this.showingsByMovie = new ConcurrentHashMap<>();
+        this.showingsByCinema = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Adds a listener to be told about every showing added or removed from now on. The
+     * listener is first told about every showing already scheduled, so it never misses one.
+     */
+    public synchronized void addScheduleListener(ScheduleListener listener) {
+        for (Showing showing : showings) {
+            listener.showingAdded(showing);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addScheduleListener
+     */
+    public void removeScheduleListener(ScheduleListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a showing to the schedule
+     */
+    public synchronized void add(Showing showing) {
+        if (!showings.add(showing)) {
+            return;
+        }
+        showingsByMovie.computeIfAbsent(showing.getMovieId(), id -> new ConcurrentSkipListSet<>(BY_START_TIME)).add(showing);
+        showingsByCinema.computeIfAbsent(showing.getCinemaId(), id -> new ConcurrentSkipListSet<>(BY_START_TIME)).add(showing);
+        notifyAdded(showing);
+    }
+
+    /**
+     * Removes a showing from the schedule. Returns false if it was not scheduled.
+     */
+    public synchronized boolean remove(Showing showing) {
+        if (!showings.remove(showing)) {
+            return false;
+        }
+        removeFrom(showingsByMovie, showing.getMovieId(), showing);
+        removeFrom(showingsByCinema, showing.getCinemaId(), showing);
+        notifyRemoved(showing);
+        return true;
+    }
+
+    /**
+     * Replaces all showings of a movie, e.g. after its showtimes were edited
+     */
+    public synchronized void setMovieShowings(int movieId, Collection<Showing> movieShowings) {
+        removeMovie(movieId);
+        addAll(movieShowings);
+    }
+
+    /**
+     * Removes all showings of a movie
+     */
+    public synchronized void removeMovie(int movieId) {
+        NavigableSet<Showing> movieShowings = showingsByMovie.remove(movieId);
+        if (movieShowings == null) {
+            return;
+        }
+        for (Showing showing : movieShowings) {
+            showings.remove(showing);
+            removeFrom(showingsByCinema, showing.getCinemaId(), showing);
+            notifyRemoved(showing);
+        }
+    }
+
+    /**
+     * Adds many showings at once, e.g. a whole season. The showings are sorted and grouped
+     * first; indexes that are still empty are then built from the sorted data in one pass
+     * instead of one insert at a time.
+     */
+    public synchronized void addAll(Collection<Showing> newShowings) {
+        if (newShowings.isEmpty()) {
+            return;
+        }
+
+        TreeSet<Showing> sorted = new TreeSet<>(BY_START_TIME);
+        sorted.addAll(newShowings);
+        sorted.removeIf(showings::contains); // Already scheduled, so not added (or announced) again
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, TreeSet<Showing>> byMovie = new HashMap<>();
+        Map<Integer, TreeSet<Showing>> byCinema = new HashMap<>();
+        for (Showing showing : sorted) {
+            byMovie.computeIfAbsent(showing.getMovieId(), id -> new TreeSet<>(BY_START_TIME)).add(showing);
+            byCinema.computeIfAbsent(showing.getCinemaId(), id -> new TreeSet<>(BY_START_TIME)).add(showing);
+        }
+
+        showings = merge(showings, sorted);
+        for (Map.Entry<Integer, TreeSet<Showing>> entry : byMovie.entrySet()) {
+            showingsByMovie.put(entry.getKey(), merge(showingsByMovie.get(entry.getKey()), entry.getValue()));
+        }
+        for (Map.Entry<Integer, TreeSet<Showing>> entry : byCinema.entrySet()) {
+            showingsByCinema.put(entry.getKey(), merge(showingsByCinema.get(entry.getKey()), entry.getValue()));
+        }
+        for (Showing showing : sorted) {
+            notifyAdded(showing);
+        }
+    }
+
+    /**
+     * Removes every showing
+     */
+    public synchronized void clear() {
+        NavigableSet<Showing> removed = showings;
+        showings = new ConcurrentSkipListSet<>(BY_START_TIME);
+        showingsByMovie.clear();
+        showingsByCinema.clear();
+        for (Showing showing : removed) {
+            notifyRemoved(showing);
+        }
+    }
+
+    /**
+     * Gets the showings that start at or after from and before to, in start order
+     */
+    public List<Showing> getShowingsBetween(LocalDateTime from, LocalDateTime to) {
+        return between(showings, from, to);
+    }
+
+    /**
+     * Gets a movie's showings that start at or after from and before to, in start order
+     */
+    public List<Showing> getMovieShowingsBetween(int movieId, LocalDateTime from, LocalDateTime to) {
+        return between(showingsByMovie.get(movieId), from, to);
+    }
+
+    /**
+     * Gets a cinema's showings that start at or after from and before to, in start order
+     */
+    public List<Showing> getCinemaShowingsBetween(int cinemaId, LocalDateTime from, LocalDateTime to) {
+        return between(showingsByCinema.get(cinemaId), from, to);
+    }
+
+    /**
+     * Gets the next count showings starting at or after from
+     */
+    public List<Showing> getNextShowings(LocalDateTime from, int count) {
+        return next(showings, from, count);
+    }
+
+    /**
+     * Gets a movie's next count showings starting at or after from
+     */
+    public List<Showing> getNextMovieShowings(int movieId, LocalDateTime from, int count) {
+        return next(showingsByMovie.get(movieId), from, count);
+    }
+
+    /**
+     * Gets all showings of a movie in start order
+     */
+    public List<Showing> getMovieShowings(int movieId) {
+        NavigableSet<Showing> movieShowings = showingsByMovie.get(movieId);
+        return movieShowings == null ? Collections.emptyList() : new ArrayList<>(movieShowings);
+    }
+
+    /**
+     * Gets the number of showings of a movie
+     */
+    public int getMovieShowingCount(int movieId) {
+        NavigableSet<Showing> movieShowings = showingsByMovie.get(movieId);
+        return movieShowings == null ? 0 : movieShowings.size();
+    }
+
+    /**
+     * Gets the number of scheduled showings. Counts the skip list, so it is O(showings).
+     */
+    public int size() {
+        return showings.size();
+    }
+
+    private static List<Showing> between(NavigableSet<Showing> set, LocalDateTime from, LocalDateTime to) {
+        if (set == null || from.isAfter(to)) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(set.subSet(probe(from), true, probe(to), false));
+    }
+
+    private static List<Showing> next(NavigableSet<Showing> set, LocalDateTime from, int count) {
+        List<Showing> result = new ArrayList<>(Math.min(count, 16));
+        if (set == null) {
+            return result;
+        }
+        for (Showing showing : set.tailSet(probe(from), true)) {
+            if (result.size() >= count) {
+                break;
+            }
+            result.add(showing);
+        }
+        return result;
+    }
+
+    /**
+     * Builds a search key that sorts after every showing starting before the given time
+     * and before every showing starting at or after it. Showings start on whole minutes,
+     * so a time inside a minute is rounded up to the next one rather than down.
+     */
+    private static Showing probe(LocalDateTime time) {
+        LocalDateTime minute = Showing.normalizeStartTime(time);
+        return new Showing(-1, Integer.MIN_VALUE, Integer.MIN_VALUE, minute.equals(time) ? time : minute.plusMinutes(1));
+    }
+
+    private void notifyAdded(Showing showing) {
+        for (ScheduleListener listener : listeners) {
+            listener.showingAdded(showing);
+        }
+    }
+
+    private void notifyRemoved(Showing showing) {
+        for (ScheduleListener listener : listeners) {
+            listener.showingRemoved(showing);
+        }
+    }
+
+    /**
+     * Adds sorted showings to a set, building a new skip list in one pass when the set is empty
+     */
+    private static NavigableSet<Showing> merge(NavigableSet<Showing> set, TreeSet<Showing> sorted) {
+        if (set == null || set.isEmpty()) {
+            return new ConcurrentSkipListSet<>(sorted); // Linear time from a sorted set
+        }
+        set.addAll(sorted);
+        return set;
+    }
+
+    private static void removeFrom(Map<Integer, NavigableSet<Showing>> index, int key, Showing showing) {
+        NavigableSet<Showing> set = index.get(key);
+        if (set != null) {
+            set.remove(showing);
+            if (set.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package controller;
+
+import model.Movie;
+import model.Showing;
+import model.User;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and reads memory-mapped snapshots of the whole application state:
+ * movies, users and the sold and blocked seats of every showing.
+ *
+ * A snapshot remembers the journal offset it was taken at, so startup only has
+ * to map the snapshot and replay the journal from that offset on. The offset is
+ * read before the state is copied, so the snapshot may already contain a few
+ * later records; replaying them again is harmless because every replayed change
+ * just sets the final state of the seats, movie or user it touches.
+ *
+ * Layout: header, then a movies section, a users section and a showings section.
+ * Each showing stores its sold seat indices followed by the price each was sold at,
+ * then its blocked seat indices, as raw ints so they can be copied straight out of the map.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x43425331; // "CBS1"
+    private static final int VERSION = 4; // 2 added seat prices, 3 blocked seats, 4 movie cinemas
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8;
+
+    private final Path file;
+
+    public SnapshotStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Checks whether a snapshot has been written
+     */
+    public boolean exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Writes a snapshot taken at the given journal offset. The file is written next
+     * to the old one and then moved over it, so a crash never leaves a half-written snapshot.
+     */
+    public void write(long journalPosition, MovieController movieController,
+                      BookingController bookingController, AdminController adminController) throws IOException {
+        byte[] movies = encodeMovies(movieController.getAllMovies());
+        byte[] users = encodeUsers(adminController.getAllUsers());
+
+        List<Showing> showings = new ArrayList<>();
+        List<SeatChange> soldSeats = new ArrayList<>();
+        List<int[]> blockedSeats = new ArrayList<>();
+        long showingBytes = 4;
+        for (Showing showing : bookingController.getShowingRegistry().getAllShowings()) {
+            SeatChange sold = bookingController.getSoldSeats(showing);
+            if (sold == null) {
+                continue;
+            }
+            int[] blocked = bookingController.getBlockedSeatIndices(showing);
+            showings.add(showing);
+            soldSeats.add(sold);
+            blockedSeats.add(blocked);
+            showingBytes += 4 + 4 + 8 + 4 + sold.size() * 8L + 4 + blocked.length * 4L;
+        }
+
+        long size = HEADER_BYTES + 4 + movies.length + 4 + users.length + showingBytes;
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(tempFile);
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.putInt(MAGIC);
+            map.putInt(VERSION);
+            map.putLong(journalPosition);
+            map.putLong(System.currentTimeMillis());
+
+            map.putInt(movies.length);
+            map.put(movies);
+            map.putInt(users.length);
+            map.put(users);
+
+            map.putInt(showings.size());
+            for (int i = 0; i < showings.size(); i++) {
+                Showing showing = showings.get(i);
+                SeatChange sold = soldSeats.get(i);
+                map.putInt(showing.getMovieId());
+                map.putInt(showing.getCinemaId());
+                map.putLong(showing.getStartTime().toEpochSecond(ZoneOffset.UTC));
+                map.putInt(sold.size());
+                map.asIntBuffer().put(sold.getSeats()).put(sold.getPriceCents());
+                map.position(map.position() + sold.size() * 8);
+                int[] blocked = blockedSeats.get(i);
+                map.putInt(blocked.length);
+                map.asIntBuffer().put(blocked);
+                map.position(map.position() + blocked.length * 4);
+            }
+
+            map.force();
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot into the controllers and returns the journal offset to replay from
+     */
+    public long load(MovieController movieController, BookingController bookingController,
+                     AdminController adminController) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+                throw new IOException("Not a CineBook snapshot: " + file);
+            }
+            long journalPosition = map.getLong();
+            map.getLong(); // Creation time, for information only
+
+            byte[] movies = new byte[map.getInt()];
+            map.get(movies);
+            movieController.restoreMovies(decodeMovies(movies));
+
+            byte[] users = new byte[map.getInt()];
+            map.get(users);
+            adminController.restoreUsers(decodeUsers(users));
+
+            int showingCount = map.getInt();
+            for (int i = 0; i < showingCount; i++) {
+                int movieId = map.getInt();
+                int cinemaId = map.getInt();
+                LocalDateTime startTime = LocalDateTime.ofEpochSecond(map.getLong(), 0, ZoneOffset.UTC);
+                int[] seats = new int[map.getInt()];
+                int[] prices = new int[seats.length];
+                map.asIntBuffer().get(seats).get(prices);
+                map.position(map.position() + seats.length * 8);
+                int[] blocked = new int[map.getInt()];
+                map.asIntBuffer().get(blocked);
+                map.position(map.position() + blocked.length * 4);
+
+                Showing showing = bookingController.getShowing(movieId, cinemaId, startTime);
+                bookingController.restoreSoldSeats(showing, seats, prices);
+                bookingController.restoreBlockedSeats(showing, blocked);
+            }
+
+            return journalPosition;
+        }
+    }
+
+    private static byte[] encodeMovies(List<Movie> movies) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(movies.size());
+        for (Movie movie : movies) {
+            BookingJournal.writeMovie(out, movie);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<Movie> decodeMovies(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Movie movie = BookingJournal.readMovie(in);
+            BookingJournal.readCinemas(in, movie);
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private static byte[] encodeUsers(List<User> users) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(users.size());
+        for (User user : users) {
+            BookingJournal.writeUser(out, user);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<User> decodeUsers(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int count = in.readInt();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(BookingJournal.readUser(in));
+        }
+        return users;
+    }
+}
@@ -2,6 +2,8 @@ package controller;
 
 import model.User;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller class for user-related operations
  */
@@ -26,6 +28,13 @@ public class UserController {
         return adminController.validateUserLogin(username, password);
     }
 
+    /**
+     * Authenticates a user without blocking the calling thread
+     */
+    public CompletableFuture<Boolean> loginAsync(String username, String password) {
+        return adminController.validateUserLoginAsync(username, password);
+    }
+
     /**
      * Logs out the current user
      */
@@ -0,0 +1,156 @@
+package controller;
+
+import model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores users indexed by username, by role and by email, so logins,
+ * registrations and role queries never scan the whole user base.
+ *
+ * Lookups are lock-free. Changes are synchronized so the indexes always agree
+ * with each other; they are rare compared to lookups. Users are returned in no
+ * particular order.
+ */
+public class UserDirectory {
+    private final Map<String, User> usersByName;
+    private final Map<String, User> adminsByName;
+    private final Map<String, User> regularUsersByName;
+    private final Map<String, User> usersByEmail; // Keys are lower case; users without an email are not listed
+
+    public UserDirectory() {
+        this.usersByName = new ConcurrentHashMap<>();
+        this.adminsByName = new ConcurrentHashMap<>();
+        this.regularUsersByName = new ConcurrentHashMap<>();
+        this.usersByEmail = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets a user by username, or null if there is none
+     */
+    public User get(String username) {
+        return username == null ? null : usersByName.get(username);
+    }
+
+    /**
+     * Gets a user by email address (ignoring case), or null if there is none
+     */
+    public User getByEmail(String email) {
+        return email == null ? null : usersByEmail.get(toEmailKey(email));
+    }
+
+    /**
+     * Checks whether a username is taken
+     */
+    public boolean contains(String username) {
+        return get(username) != null;
+    }
+
+    /**
+     * Adds a user if the username is not taken yet. Returns false if it is.
+     */
+    public synchronized boolean add(User user) {
+        if (usersByName.putIfAbsent(user.getUsername(), user) != null) {
+            return false;
+        }
+        index(user);
+        return true;
+    }
+
+    /**
+     * Adds a user, replacing any user with the same username
+     */
+    public synchronized void put(User user) {
+        User old = usersByName.put(user.getUsername(), user);
+        if (old != null) {
+            unindex(old);
+        }
+        index(user);
+    }
+
+    /**
+     * Removes a user and returns it, or null if there was none
+     */
+    public synchronized User remove(String username) {
+        User user = usersByName.remove(username);
+        if (user != null) {
+            unindex(user);
+        }
+        return user;
+    }
+
+    /**
+     * Replaces all users
+     */
+    public synchronized void replaceAll(Collection<User> users) {
+        usersByName.clear();
+        adminsByName.clear();
+        regularUsersByName.clear();
+        usersByEmail.clear();
+        for (User user : users) {
+            put(user);
+        }
+    }
+
+    /**
+     * Changes a user's email address, keeping the email index up to date
+     */
+    public synchronized void setEmail(User user, String email) {
+        unindex(user);
+        user.setEmail(email);
+        if (usersByName.get(user.getUsername()) == user) {
+            index(user);
+        }
+    }
+
+    /**
+     * Changes a user's role, keeping the role index up to date
+     */
+    public synchronized void setAdmin(User user, boolean admin) {
+        unindex(user);
+        user.setAdmin(admin);
+        if (usersByName.get(user.getUsername()) == user) {
+            index(user);
+        }
+    }
+
+    public int size() {
+        return usersByName.size();
+    }
+
+    public List<User> getAll() {
+        return new ArrayList<>(usersByName.values());
+    }
+
+    public List<User> getAdmins() {
+        return new ArrayList<>(adminsByName.values());
+    }
+
+    public List<User> getRegularUsers() {
+        return new ArrayList<>(regularUsersByName.values());
+    }
+
+    private void index(User user) {
+        (user.isAdmin() ? adminsByName : regularUsersByName).put(user.getUsername(), user);
+        if (user.getEmail() != null && !user.getEmail().isEmpty()) {
+            usersByEmail.putIfAbsent(toEmailKey(user.getEmail()), user);
+        }
+    }
+
+    private void unindex(User user) {
+        adminsByName.remove(user.getUsername(), user);
+        regularUsersByName.remove(user.getUsername(), user);
+        if (user.getEmail() != null) {
+            usersByEmail.remove(toEmailKey(user.getEmail()), user);
+        }
+    }
+
+    private static String toEmailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
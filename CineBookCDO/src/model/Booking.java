@@ -14,12 +14,22 @@ public class Booking {
     private Movie movie;
     private LocalDateTime showtime;
     private List<String> seats;
-    private double totalAmount;
+    private long totalAmountCents;
     private LocalDateTime bookingTime;
     private boolean isPaid;
     private String paymentMethod;
+    private String holdId; // Seat hold kept while the customer pays
+    private HallLayout hallLayout; // Hall the seats are in; null prices seats by their row
     
     public Booking(User user, Movie movie, LocalDateTime showtime, List<String> seats) {
+        this(user, movie, showtime, seats, null);
+    }
+    
+    /**
+     * Creates a booking whose seats are priced by their tiers in the given hall, so
+     * the total matches what the seat map shows and what the sale records
+     */
+    public Booking(User user, Movie movie, LocalDateTime showtime, List<String> seats, HallLayout hallLayout) {
         this.id = UUID.randomUUID().toString();
         this.user = user;
         this.movie = movie;
@@ -27,6 +37,7 @@ public class Booking {
         this.seats = new ArrayList<>(seats);
         this.bookingTime = LocalDateTime.now();
         this.isPaid = false;
+        this.hallLayout = hallLayout;
         calculateTotalAmount();
     }
     
@@ -34,24 +45,23 @@ public class Booking {
      * Calculates the total amount for the booking
      */
     private void calculateTotalAmount() {
-        double standardSeatPrice = 200.0; // PHP 200
-        double deluxeSeatPrice = 350.0;   // PHP 350
+        long amountCents = 0;
         
-        double amount = 0;
-        
-        // Calculate price based on seat types
+        // Calculate price based on seat tiers in the hall (or by row: A-F are standard seats, G-J are deluxe)
         for (String seat : seats) {
-            char row = seat.charAt(0);
-            
-            // Rows A-F are standard seats, G-J are deluxe
-            if (row >= 'A' && row <= 'F') {
-                amount += standardSeatPrice;
-            } else if (row >= 'G' && row <= 'J') {
-                amount += deluxeSeatPrice;
+            SeatTier tier;
+            if (hallLayout != null) {
+                tier = hallLayout.getTier(hallLayout.toSeatIndex(seat));
+            } else {
+                int code = SeatCode.parse(seat);
+                tier = code != SeatCode.INVALID ? SeatCode.getTierOrRowTier(code) : null;
+            }
+            if (tier != null) {
+                amountCents += tier.getPriceCents();
             }
         }
         
-        this.totalAmount = amount;
+        this.totalAmountCents = amountCents;
     }
     
     /**
@@ -102,7 +112,11 @@ public class Booking {
     }
     
     public double getTotalAmount() {
-        return totalAmount;
+        return totalAmountCents / 100.0;
+    }
+    
+    public long getTotalAmountCents() {
+        return totalAmountCents;
     }
     
     public LocalDateTime getBookingTime() {
@@ -125,6 +139,18 @@ public class Booking {
         this.paymentMethod = paymentMethod;
     }
     
+    public HallLayout getHallLayout() {
+        return hallLayout;
+    }
+    
+    public String getHoldId() {
+        return holdId;
+    }
+    
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+    
     /**
      * Gets formatted seats as a string (e.g., "A1, A2, B3")
      */
@@ -0,0 +1,221 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The seat plan of a cinema hall: a grid of rows and columns where each position is
+ * either a seat (with an id such as "C7" and a tier) or a gap such as an aisle.
+ *
+ * Seats are addressed by their grid index, row * columns + column. Seat numbers
+ * count seats only, so the seat after an aisle continues the row's numbering, and
+ * rows without seats (cross aisles) get no letter.
+ *
+ * Layouts are immutable and built once, so one instance is shared by every showing
+ * in every hall with the same plan. Seat ids are the shared strings of SeatCode, and
+ * seats can also be looked up by their SeatCode without touching a string.
+ */
+public final class HallLayout {
+    private static final char GAP = '.';
+
+    private final String name;
+    private final int rows;
+    private final int columns;
+    private final String[] seatIds;  // By grid index; null for gaps
+    private final SeatTier[] tiers;  // By grid index; null for gaps
+    private final int[] seatCodes;   // By grid index, with tiers; SeatCode.INVALID for gaps
+    private final int capacity;
+    private final int maxSeatNumber;
+    private final int[] indexBySeat; // By row letter * maxSeatNumber + seat number - 1; -1 if no such seat
+    private final List<String> allSeatIds;
+
+    private HallLayout(String name, String[] rowPlans) {
+        this.name = name;
+        this.rows = rowPlans.length;
+        this.columns = rowPlans.length == 0 ? 0 : rowPlans[0].length();
+        this.seatIds = new String[rows * columns];
+        this.tiers = new SeatTier[rows * columns];
+        this.seatCodes = new int[rows * columns];
+        Arrays.fill(seatCodes, SeatCode.INVALID);
+
+        List<String> ids = new ArrayList<>();
+        int rowLetter = 0;
+        int widestRow = 0;
+        for (int row = 0; row < rows; row++) {
+            String plan = rowPlans[row];
+            if (plan.length() != columns) {
+                throw new IllegalArgumentException("Row " + (row + 1) + " of " + name + " has " + plan.length() +
+                        " positions, expected " + columns);
+            }
+
+            int seatNumber = 0;
+            for (int column = 0; column < columns; column++) {
+                char code = plan.charAt(column);
+                if (code == GAP) {
+                    continue;
+                }
+
+                if (rowLetter >= SeatCode.MAX_ROWS) {
+                    throw new IllegalArgumentException(name + " has more than " + SeatCode.MAX_ROWS + " rows of seats");
+                }
+                int index = row * columns + column;
+                int seatCode = SeatCode.of(rowLetter, ++seatNumber, toTier(code));
+                seatCodes[index] = seatCode;
+                seatIds[index] = SeatCode.format(seatCode);
+                tiers[index] = SeatCode.getTier(seatCode);
+                ids.add(seatIds[index]);
+            }
+            if (seatNumber > 0) {
+                rowLetter++;
+                widestRow = Math.max(widestRow, seatNumber);
+            }
+        }
+
+        this.capacity = ids.size();
+        this.allSeatIds = Collections.unmodifiableList(ids);
+        this.maxSeatNumber = widestRow;
+        this.indexBySeat = new int[rowLetter * widestRow];
+        Arrays.fill(indexBySeat, -1);
+        for (int index = 0; index < seatCodes.length; index++) {
+            if (seatCodes[index] != SeatCode.INVALID) {
+                indexBySeat[SeatCode.getRow(seatCodes[index]) * widestRow + SeatCode.getNumber(seatCodes[index]) - 1] = index;
+            }
+        }
+    }
+
+    /**
+     * Builds a layout from a plan with one string per row: 'S' is a standard seat,
+     * 'D' a deluxe seat, 'P' a premium seat and '.' a gap. All rows must be the same length.
+     */
+    public static HallLayout fromPlan(String name, String... rowPlans) {
+        return new HallLayout(name, rowPlans.clone());
+    }
+
+    /**
+     * Builds a rectangular hall without aisles, with seat tiers by row as in SeatTier.forRow
+     */
+    public static HallLayout rectangular(String name, int rows, int columns) {
+        return forSeatCount(name, rows * columns, columns);
+    }
+
+    /**
+     * Builds a hall with the given number of seats in rows of the given width;
+     * the last row is partly empty if the seats do not fill it. Rows are made wider
+     * if the seats would not fit in rows A-Z.
+     */
+    public static HallLayout forSeatCount(String name, int seats, int columns) {
+        columns = Math.max(columns, (seats + SeatCode.MAX_ROWS - 1) / SeatCode.MAX_ROWS);
+        int rows = (seats + columns - 1) / columns;
+        String[] plans = new String[rows];
+        for (int row = 0; row < rows; row++) {
+            char code = SeatTier.forRowIndex(row) == SeatTier.STANDARD ? 'S' : 'D';
+            StringBuilder plan = new StringBuilder(columns);
+            for (int column = 0; column < columns; column++) {
+                plan.append(row * columns + column < seats ? code : GAP);
+            }
+            plans[row] = plan.toString();
+        }
+        return new HallLayout(name, plans);
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the number of grid positions, seats and gaps (rows * columns)
+     */
+    public int getGridSize() {
+        return seatIds.length;
+    }
+
+    /**
+     * Gets the number of seats
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets all seat ids in grid order. The list is shared and read-only.
+     */
+    public List<String> getSeatIds() {
+        return allSeatIds;
+    }
+
+    /**
+     * Converts a seat id (e.g., "B7") to its grid index, or -1 if there is no such seat
+     */
+    public int toSeatIndex(String seatId) {
+        return toSeatIndex(SeatCode.parse(seatId));
+    }
+
+    /**
+     * Converts a seat code to its grid index, or -1 if there is no such seat. The code's tier is ignored.
+     */
+    public int toSeatIndex(int seatCode) {
+        if (seatCode == SeatCode.INVALID) {
+            return -1;
+        }
+        int number = SeatCode.getNumber(seatCode);
+        int position = SeatCode.getRow(seatCode) * maxSeatNumber + number - 1;
+        return number <= maxSeatNumber && position < indexBySeat.length ? indexBySeat[position] : -1;
+    }
+
+    /**
+     * Gets the code (with tier) of the seat at a grid index, or SeatCode.INVALID for a gap
+     */
+    public int getSeatCode(int index) {
+        return index >= 0 && index < seatCodes.length ? seatCodes[index] : SeatCode.INVALID;
+    }
+
+    /**
+     * Gets the id of the seat at a grid index, or null for a gap
+     */
+    public String getSeatId(int index) {
+        return index >= 0 && index < seatIds.length ? seatIds[index] : null;
+    }
+
+    /**
+     * Checks whether a grid index is a seat and not a gap
+     */
+    public boolean isSeat(int index) {
+        return getSeatId(index) != null;
+    }
+
+    /**
+     * Gets the tier of the seat at a grid index, or null for a gap
+     */
+    public SeatTier getTier(int index) {
+        return index >= 0 && index < tiers.length ? tiers[index] : null;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + capacity + " seats)";
+    }
+
+    private static SeatTier toTier(char code) {
+        switch (code) {
+            case 'S':
+                return SeatTier.STANDARD;
+            case 'D':
+                return SeatTier.DELUXE;
+            case 'P':
+                return SeatTier.PREMIUM;
+            default:
+                throw new IllegalArgumentException("Unknown seat code '" + code + "'");
+        }
+    }
+}
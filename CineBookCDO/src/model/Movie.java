@@ -20,6 +20,7 @@ public class Movie {
     private String trailer; // URL to trailer
     private String rating;  // PG, PG-13, R, etc.
     private List<LocalDateTime> showtimes;
+    private List<String> cinemas; // Names of the cinemas every showtime plays in
     
     public Movie(int id, String title, String description, String genre, int durationMinutes) {
         this.id = id;
@@ -28,6 +29,7 @@ public class Movie {
         this.genre = genre;
         this.durationMinutes = durationMinutes;
         this.showtimes = new ArrayList<>();
+        this.cinemas = new ArrayList<>();
     }
     
     // Constructor with all fields
@@ -44,6 +46,7 @@ public class Movie {
         this.trailer = trailer;
         this.rating = rating;
         this.showtimes = new ArrayList<>();
+        this.cinemas = new ArrayList<>();
     }
     
     // Getters and setters
@@ -143,6 +146,22 @@ public class Movie {
         this.showtimes.remove(showtime);
     }
     
+    public List<String> getCinemas() {
+        return cinemas;
+    }
+    
+    public void setCinemas(List<String> cinemas) {
+        this.cinemas = cinemas;
+    }
+    
+    public void addCinema(String cinema) {
+        this.cinemas.add(cinema);
+    }
+    
+    public void removeCinema(String cinema) {
+        this.cinemas.remove(cinema);
+    }
+    
     /**
      * Formats duration as hours and minutes
      */
@@ -20,13 +20,9 @@ public class Seat {
         this.isAvailable = true;
         
         // Determine seat type and price based on row
-        if (row >= 'A' && row <= 'F') {
-            this.type = "Standard";
-            this.price = 200.0; // PHP 200
-        } else {
-            this.type = "Deluxe";
-            this.price = 350.0; // PHP 350
-        }
+        SeatTier tier = SeatTier.forRow(row);
+        this.type = tier.getDisplayName();
+        this.price = tier.getPrice();
     }
     
     public Seat(String id, char row, int column, String type, double price) {
@@ -38,6 +34,20 @@ public class Seat {
         this.isAvailable = true;
     }
     
+    /**
+     * Creates a seat from its SeatCode, priced by the code's tier (or its row's tier if it has none)
+     */
+    public Seat(int code) {
+        this.id = SeatCode.format(code);
+        this.row = SeatCode.getRowLetter(code);
+        this.column = SeatCode.getNumber(code);
+        this.isAvailable = true;
+        
+        SeatTier tier = SeatCode.getTierOrRowTier(code);
+        this.type = tier.getDisplayName();
+        this.price = tier.getPrice();
+    }
+    
     // Getters and setters
     public String getId() {
         return id;
@@ -47,6 +57,13 @@ public class Seat {
         this.id = id;
     }
     
+    /**
+     * Gets the SeatCode of this seat (without a tier)
+     */
+    public int getCode() {
+        return SeatCode.of(row - 'A', column);
+    }
+    
     public char getRow() {
         return row;
     }
@@ -0,0 +1,172 @@
+package model;
+
+/**
+ * Packs a seat's row, number and tier into one int, so the booking path can pass
+ * and compare seats as plain ints instead of ids such as "G7".
+ *
+ * Bits 0-11 hold the seat number (1-4095), bits 12-16 the row (0 is row A, up to Z)
+ * and bits 17-18 the tier (0 if unknown, otherwise ordinal + 1). Two codes for the
+ * same seat are equal once their tiers are dropped with withoutTier. INVALID (-1)
+ * stands for an id that is not a seat.
+ *
+ * Parsing and the ids of seats in rows A-Z up to number MAX_CACHED_NUMBER allocate
+ * nothing: those ids are built once and shared.
+ */
+public final class SeatCode {
+    public static final int INVALID = -1;
+    public static final int MAX_ROWS = 26;           // Rows A-Z
+    public static final int MAX_NUMBER = 0xFFF;
+    public static final int MAX_CACHED_NUMBER = 64;  // Wider rows still work, their ids are built on each call
+
+    private static final int ROW_SHIFT = 12;
+    private static final int TIER_SHIFT = 17;
+    private static final int NUMBER_MASK = 0xFFF;
+    private static final int ROW_MASK = 0x1F;
+    private static final int TIER_MASK = 0x3;
+    private static final SeatTier[] TIERS = SeatTier.values();
+
+    private static final String[] SEAT_IDS = new String[MAX_ROWS * MAX_CACHED_NUMBER]; // By row * MAX_CACHED_NUMBER + number - 1
+
+    static {
+        for (int row = 0; row < MAX_ROWS; row++) {
+            for (int number = 1; number <= MAX_CACHED_NUMBER; number++) {
+                SEAT_IDS[row * MAX_CACHED_NUMBER + number - 1] = ((char) ('A' + row) + String.valueOf(number)).intern();
+            }
+        }
+    }
+
+    private SeatCode() {
+    }
+
+    /**
+     * Builds the code of a seat from its zero-based row and its number in the row
+     */
+    public static int of(int row, int number) {
+        if (row < 0 || row >= MAX_ROWS || number < 1 || number > MAX_NUMBER) {
+            return INVALID;
+        }
+        return row << ROW_SHIFT | number;
+    }
+
+    /**
+     * Builds the code of a seat, including its tier
+     */
+    public static int of(int row, int number, SeatTier tier) {
+        return withTier(of(row, number), tier);
+    }
+
+    /**
+     * Parses a seat id such as "G7" (the row letter may be lower case) without allocating.
+     * Returns INVALID if the id is not a row letter followed by a seat number. The code
+     * has no tier; the tier comes from the hall layout.
+     */
+    public static int parse(CharSequence seatId) {
+        if (seatId == null || seatId.length() < 2) {
+            return INVALID;
+        }
+
+        char letter = seatId.charAt(0);
+        int row = letter >= 'a' && letter <= 'z' ? letter - 'a' : letter - 'A';
+        if (row < 0 || row >= MAX_ROWS) {
+            return INVALID;
+        }
+
+        int number = 0;
+        for (int i = 1; i < seatId.length(); i++) {
+            char digit = seatId.charAt(i);
+            if (digit < '0' || digit > '9' || (i == 1 && digit == '0')) {
+                return INVALID;
+            }
+            number = number * 10 + (digit - '0');
+            if (number > MAX_NUMBER) {
+                return INVALID;
+            }
+        }
+        return of(row, number);
+    }
+
+    /**
+     * Gets the id of a seat, e.g. "G7". Returns a shared string for seats in the cache
+     * range and null for INVALID.
+     */
+    public static String format(int code) {
+        if (code == INVALID) {
+            return null;
+        }
+
+        int row = getRow(code);
+        int number = getNumber(code);
+        if (number <= MAX_CACHED_NUMBER) {
+            return SEAT_IDS[row * MAX_CACHED_NUMBER + number - 1];
+        }
+        return (char) ('A' + row) + String.valueOf(number);
+    }
+
+    /**
+     * Appends the id of a seat to a builder without creating a string
+     */
+    public static StringBuilder appendTo(StringBuilder builder, int code) {
+        return builder.append(getRowLetter(code)).append(getNumber(code));
+    }
+
+    /**
+     * Gets the zero-based row of a seat (0 is row A)
+     */
+    public static int getRow(int code) {
+        return code >>> ROW_SHIFT & ROW_MASK;
+    }
+
+    /**
+     * Gets the row letter of a seat
+     */
+    public static char getRowLetter(int code) {
+        return (char) ('A' + getRow(code));
+    }
+
+    /**
+     * Gets the number of a seat in its row, starting at 1
+     */
+    public static int getNumber(int code) {
+        return code & NUMBER_MASK;
+    }
+
+    /**
+     * Gets the tier stored in a code, or null if the code has none
+     */
+    public static SeatTier getTier(int code) {
+        int tier = code >>> TIER_SHIFT & TIER_MASK;
+        return code == INVALID || tier == 0 ? null : TIERS[tier - 1];
+    }
+
+    /**
+     * Gets the tier stored in a code, or the tier of its row if the code has none
+     */
+    public static SeatTier getTierOrRowTier(int code) {
+        SeatTier tier = getTier(code);
+        return tier != null ? tier : SeatTier.forRowIndex(getRow(code));
+    }
+
+    /**
+     * Returns the code with the given tier (null to drop it)
+     */
+    public static int withTier(int code, SeatTier tier) {
+        if (code == INVALID) {
+            return INVALID;
+        }
+        return withoutTier(code) | (tier == null ? 0 : tier.ordinal() + 1) << TIER_SHIFT;
+    }
+
+    /**
+     * Returns the code without its tier, e.g. to compare seats
+     */
+    public static int withoutTier(int code) {
+        return code == INVALID ? INVALID : code & (ROW_MASK << ROW_SHIFT | NUMBER_MASK);
+    }
+
+    /**
+     * Checks whether two codes are the same seat, ignoring tiers
+     */
+    public static boolean isSameSeat(int code, int other) {
+        return withoutTier(code) == withoutTier(other);
+    }
+}
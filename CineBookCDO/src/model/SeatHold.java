@@ -0,0 +1,53 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Represents seats that are held for a customer between seat selection and payment.
+ * A hold expires automatically unless it is confirmed before its deadline.
+ */
+public class SeatHold {
+    private final String id;
+    private final Showing showing;
+    private final List<String> seats;
+    private final long expiresAtMillis;
+
+    public SeatHold(Showing showing, List<String> seats, long expiresAtMillis) {
+        this.id = UUID.randomUUID().toString();
+        this.showing = showing;
+        this.seats = Collections.unmodifiableList(new ArrayList<>(seats));
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public Showing getShowing() {
+        return showing;
+    }
+
+    public List<String> getSeats() {
+        return seats;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * Gets how many milliseconds are left before the hold expires (0 if already expired)
+     */
+    public long getRemainingMillis(long nowMillis) {
+        return Math.max(0, expiresAtMillis - nowMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "Hold " + id + " " + seats + " on " + showing;
+    }
+}
@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Seat tiers and their ticket prices. Prices are kept in centavos so totals are exact.
+ */
+public enum SeatTier {
+    STANDARD("Standard", 20000), // PHP 200
+    DELUXE("Deluxe", 35000),     // PHP 350
+    PREMIUM("Premium", 50000);   // PHP 500, e.g. IMAX center and 4DX motion seats
+
+    private final String displayName;
+    private final int priceCents;
+
+    SeatTier(String displayName, int priceCents) {
+        this.displayName = displayName;
+        this.priceCents = priceCents;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public int getPriceCents() {
+        return priceCents;
+    }
+
+    public double getPrice() {
+        return priceCents / 100.0;
+    }
+
+    /**
+     * Gets the tier of a seat row. Rows A-F are standard seats, G and later are deluxe.
+     */
+    public static SeatTier forRow(char row) {
+        return row <= 'F' ? STANDARD : DELUXE;
+    }
+
+    /**
+     * Gets the tier of a zero-based row index (0 is row A)
+     */
+    public static SeatTier forRowIndex(int rowIndex) {
+        return forRow((char) ('A' + rowIndex));
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Represents one logged-in user's session, e.g. one kiosk window.
+ * The token is the only way to find a session, so it should be kept private to its client.
+ * A session also holds the booking the user is working on, if any.
+ */
+public class Session {
+    private final String token;
+    private final User user;
+    private final long createdAtMillis;
+    private volatile long lastAccessMillis;
+    private volatile Booking booking; // Booking in progress; null when there is none
+
+    public Session(String token, User user, long createdAtMillis) {
+        this.token = token;
+        this.user = user;
+        this.createdAtMillis = createdAtMillis;
+        this.lastAccessMillis = createdAtMillis;
+    }
+
+    // Getters
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public void setBooking(Booking booking) {
+        this.booking = booking;
+    }
+
+    /**
+     * Records that the session was used
+     */
+    public void touch(long nowMillis) {
+        this.lastAccessMillis = nowMillis;
+    }
+
+    /**
+     * Checks whether the session has not been used for at least the given time
+     */
+    public boolean isIdle(long nowMillis, long idleTimeoutMillis) {
+        return nowMillis - lastAccessMillis >= idleTimeoutMillis;
+    }
+}
@@ -0,0 +1,71 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+/**
+ * Represents one screening of a movie in a cinema at a specific start time.
+ * Showings are created by the ShowingRegistry, which also assigns each one
+ * a small dense handle that can be used as an array index.
+ */
+public class Showing {
+    public static final int UNASSIGNED_CINEMA = 0; // Used when a showtime has no cinema yet
+
+    private final int handle;
+    private final int movieId;
+    private final int cinemaId;
+    private final LocalDateTime startTime;
+
+    public Showing(int handle, int movieId, int cinemaId, LocalDateTime startTime) {
+        this.handle = handle;
+        this.movieId = movieId;
+        this.cinemaId = cinemaId;
+        this.startTime = normalizeStartTime(startTime);
+    }
+
+    /**
+     * Drops seconds and nanoseconds so that showtimes built from LocalDateTime.now()
+     * still match the same showing
+     */
+    public static LocalDateTime normalizeStartTime(LocalDateTime startTime) {
+        return startTime.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    // Getters
+    public int getHandle() {
+        return handle;
+    }
+
+    public int getMovieId() {
+        return movieId;
+    }
+
+    public int getCinemaId() {
+        return cinemaId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Showing #" + handle + " (movie " + movieId + ", cinema " + cinemaId + ", " + startTime + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Showing showing = (Showing) o;
+        return movieId == showing.movieId &&
+               cinemaId == showing.cinemaId &&
+               startTime.equals(showing.startTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(movieId, cinemaId, startTime);
+    }
+}
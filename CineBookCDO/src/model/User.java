@@ -8,13 +8,12 @@ import java.util.Objects;
  */
 public class User {
     private String username;
-    private String password;
+    private String passwordHash; // PBKDF2 hash made by controller.PasswordHasher
     private String email;
     private String phoneNumber;
     private String fullName;
     private boolean isAdmin;
-    private boolean isLoggedIn;
-    private LocalDateTime lastLoginTime;
+    private volatile LocalDateTime lastLoginTime;
     private LocalDateTime registrationDate;
 
     /**
@@ -22,33 +21,30 @@ public class User {
      */
     public User(String username) {
         this.username = username;
-        this.password = null;
+        this.passwordHash = null;
         this.isAdmin = false;
-        this.isLoggedIn = false;
         this.registrationDate = LocalDateTime.now();
     }
 
     /**
      * Constructor for creating a new registered user
      */
-    public User(String username, String password, String email, String fullName) {
+    public User(String username, String passwordHash, String email, String fullName) {
         this.username = username;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.email = email;
         this.fullName = fullName;
         this.isAdmin = false;
-        this.isLoggedIn = false;
         this.registrationDate = LocalDateTime.now();
     }
 
     /**
      * Constructor for creating an admin user
      */
-    public User(String username, String password, boolean isAdmin) {
+    public User(String username, String passwordHash, boolean isAdmin) {
         this.username = username;
-        this.password = password;
+        this.passwordHash = passwordHash;
         this.isAdmin = isAdmin;
-        this.isLoggedIn = false;
         this.registrationDate = LocalDateTime.now();
     }
 
@@ -61,12 +57,12 @@ public class User {
         this.username = username;
     }
 
-    public String getPassword() {
-        return password;
+    public String getPasswordHash() {
+        return passwordHash;
     }
 
-    public void setPassword(String password) {
-        this.password = password;
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
     }
 
     public String getEmail() {
@@ -101,15 +97,11 @@ public class User {
         isAdmin = admin;
     }
 
-    public boolean isLoggedIn() {
-        return isLoggedIn;
-    }
-
-    public void setLoggedIn(boolean loggedIn) {
-        isLoggedIn = loggedIn;
-        if (loggedIn) {
-            this.lastLoginTime = LocalDateTime.now();
-        }
+    /**
+     * Records a successful login. Who is logged in is tracked by sessions, not by the user.
+     */
+    public void recordLogin() {
+        this.lastLoginTime = LocalDateTime.now();
     }
 
     public LocalDateTime getLastLoginTime() {
@@ -120,11 +112,8 @@ public class User {
         return registrationDate;
     }
 
-    /**
-     * Validates if the provided password matches this user's password
-     */
-    public boolean validatePassword(String inputPassword) {
-        return password != null && password.equals(inputPassword);
+    public void setRegistrationDate(LocalDateTime registrationDate) {
+        this.registrationDate = registrationDate;
     }
 
     @Override
@@ -0,0 +1,117 @@
+package view;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Measures how long the Swing thread is busy with each event, so freezes of the UI
+ * can be seen in numbers rather than guessed at.
+ *
+ * Once installed it replaces the system event queue and times every event it
+ * dispatches. Times go into a histogram with power-of-two millisecond buckets
+ * (under 1 ms, 1 ms, 2-3 ms, 4-7 ms and so on up to 4 s and over). Anything over
+ * STALL_MILLIS is a stall a user would notice.
+ */
+public class EdtStallMonitor extends EventQueue {
+    public static final int STALL_MILLIS = 100;
+
+    private static final int BUCKETS = 14; // Last bucket holds everything from 4096 ms up
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private volatile long longestNanos;
+
+    /**
+     * Starts timing events on the Swing thread and returns the monitor
+     */
+    public static EdtStallMonitor install() {
+        EdtStallMonitor monitor = new EdtStallMonitor();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(monitor);
+        return monitor;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds one event's dispatch time to the histogram
+     */
+    void record(long nanos) {
+        long millis = nanos / 1_000_000;
+        int bucket = millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        counts.incrementAndGet(bucket);
+        if (nanos > longestNanos) {
+            longestNanos = nanos; // Only the Swing thread records, so this cannot race
+        }
+    }
+
+    /**
+     * Gets the number of events in each bucket: bucket 0 is under 1 ms, bucket b (b > 0)
+     * is from 2^(b-1) ms up to 2^b ms
+     */
+    public long[] getCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of events that took at least STALL_MILLIS (rounded down to a bucket)
+     */
+    public long getStallCount() {
+        long stalls = 0;
+        for (int bucket = 64 - Long.numberOfLeadingZeros(STALL_MILLIS); bucket < BUCKETS; bucket++) {
+            stalls += counts.get(bucket);
+        }
+        return stalls;
+    }
+
+    public double getLongestMillis() {
+        return longestNanos / 1_000_000.0;
+    }
+
+    /**
+     * Clears the histogram, e.g. before measuring one screen
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        longestNanos = 0;
+    }
+
+    /**
+     * Formats the histogram as one line per non-empty bucket
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Swing thread event times:\n");
+        long[] snapshot = getCounts();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (snapshot[bucket] == 0) {
+                continue;
+            }
+            String range;
+            if (bucket == 0) {
+                range = "< 1 ms";
+            } else if (bucket == BUCKETS - 1) {
+                range = ">= " + (1L << (bucket - 1)) + " ms";
+            } else {
+                range = (1L << (bucket - 1)) + "-" + ((1L << bucket) - 1) + " ms";
+            }
+            report.append(String.format("  %-14s %d%n", range, snapshot[bucket]));
+        }
+        report.append(String.format("  Longest: %.1f ms, stalls over %d ms: %d%n",
+                getLongestMillis(), STALL_MILLIS, getStallCount()));
+        return report.toString();
+    }
+}
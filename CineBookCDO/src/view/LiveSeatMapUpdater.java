@@ -0,0 +1,121 @@
+package view;
+
+import controller.BookingController;
+import controller.SeatChangeFeed;
+import model.Showing;
+
+import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+/**
+ * Keeps a SeatMapComponent in step with its showing while it is on screen.
+ *
+ * Seat changes arrive from the booking engine on whichever thread made them. They are
+ * merged into one pending change (later changes to a seat win) and applied on the
+ * Swing thread at most once per frame, so a burst of bookings costs one repaint of
+ * the seats involved rather than one update per booking.
+ *
+ * Call start when the map is shown and stop when it is hidden; start reloads the
+ * whole map once, since changes made while stopped were not received.
+ */
+public class LiveSeatMapUpdater implements SeatChangeFeed.Listener {
+    private static final int FRAME_MILLIS = 16; // About 60 updates a second
+
+    private final BookingController bookingController;
+    private final Showing showing;
+    private final SeatMapComponent seatMap;
+    private final Runnable afterUpdate;
+    private final Timer frameTimer;
+    private final Object pendingLock = new Object();
+    private long[] pendingChanged; // Guarded by pendingLock; null when nothing is pending
+    private long[] pendingTaken;   // Guarded by pendingLock
+
+    /**
+     * Creates an updater for a seat map. afterUpdate (may be null) runs on the Swing
+     * thread after each batch of changes, e.g. to refresh totals of selected seats.
+     */
+    public LiveSeatMapUpdater(BookingController bookingController, Showing showing,
+                              SeatMapComponent seatMap, Runnable afterUpdate) {
+        this.bookingController = bookingController;
+        this.showing = showing;
+        this.seatMap = seatMap;
+        this.afterUpdate = afterUpdate;
+        this.frameTimer = new Timer(FRAME_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                applyPendingChanges();
+            }
+        });
+        this.frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Starts following the showing. Must be called on the Swing thread.
+     */
+    public void start() {
+        bookingController.subscribeSeatChanges(showing, this);
+        seatMap.setSeats(bookingController.getHallLayout(showing), bookingController.getTakenSeats(showing));
+    }
+
+    /**
+     * Stops following the showing. Must be called on the Swing thread.
+     */
+    public void stop() {
+        bookingController.unsubscribeSeatChanges(showing, this);
+        frameTimer.stop();
+        synchronized (pendingLock) {
+            pendingChanged = null;
+            pendingTaken = null;
+        }
+    }
+
+    @Override
+    public void seatsChanged(Showing showing, long[] changedSeats, long[] takenSeats) {
+        boolean schedule;
+        synchronized (pendingLock) {
+            schedule = pendingChanged == null;
+            if (schedule) {
+                // Copies, since other listeners of the showing get the same arrays
+                pendingChanged = changedSeats.clone();
+                pendingTaken = takenSeats.clone();
+            } else {
+                for (int i = 0; i < changedSeats.length; i++) {
+                    pendingChanged[i] |= changedSeats[i];
+                    pendingTaken[i] = (pendingTaken[i] & ~changedSeats[i]) | takenSeats[i];
+                }
+            }
+        }
+
+        if (schedule) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    frameTimer.restart();
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies everything that changed since the last frame. Runs on the Swing thread.
+     */
+    private void applyPendingChanges() {
+        long[] changed;
+        long[] taken;
+        synchronized (pendingLock) {
+            changed = pendingChanged;
+            taken = pendingTaken;
+            pendingChanged = null;
+            pendingTaken = null;
+        }
+        if (changed == null) {
+            return;
+        }
+
+        seatMap.applySeatChanges(changed, taken);
+        if (afterUpdate != null) {
+            afterUpdate.run();
+        }
+    }
+}
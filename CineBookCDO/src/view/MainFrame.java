@@ -1,16 +1,23 @@
 package view;
 
 import controller.AdminController;
+import controller.AsyncControllerService;
 import controller.BookingController;
 import controller.MovieController;
+import controller.PersistenceManager;
 import controller.ReportController;
 import controller.UserController;
+import model.Booking;
 import model.User;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Main frame of the application
@@ -23,6 +30,9 @@ public class MainFrame extends JFrame {
     private AdminController adminController;
     private UserController userController;
     private ReportController reportController;
+    private AsyncControllerService controllerService;
+    private EdtStallMonitor stallMonitor; // Null unless cinebook.edt.monitor is set
+    private PersistenceManager persistenceManager;
 
     // User interface elements
     private JButton userButton;
@@ -34,6 +44,8 @@ public class MainFrame extends JFrame {
     public static final String USER_LOGIN_PANEL = "UserLoginPanel";
     public static final String USER_REGISTRATION_PANEL = "UserRegistrationPanel";
 
+    private static final long SHUTDOWN_WAIT_MILLIS = 10_000; // Time queued bookings get to finish on exit
+
     public MainFrame() {
         setTitle("CineBook CDO - Cinema Booking System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -47,6 +59,43 @@ public class MainFrame extends JFrame {
         adminController = new AdminController();
         userController = new UserController(adminController);
         reportController = new ReportController(bookingController, movieController);
+        controllerService = new AsyncControllerService(bookingController, reportController, adminController);
+        
+        // Time every event on the Swing thread when asked to, to find what freezes the UI
+        if (Boolean.getBoolean("cinebook.edt.monitor")) {
+            stallMonitor = EdtStallMonitor.install();
+        }
+        
+        // Release the held seats of a booking left unfinished when its session ends
+        adminController.getSessionManager().setSessionEndListener(session -> {
+            Booking booking = session.getBooking();
+            if (booking != null && booking.getHoldId() != null) {
+                bookingController.releaseHold(booking.getHoldId());
+            }
+        });
+        
+        // Restore saved data and record new changes
+        persistenceManager = new PersistenceManager(Paths.get("data"),
+                movieController, bookingController, adminController);
+        try {
+            persistenceManager.open();
+        } catch (IOException e) {
+            System.err.println("Could not open saved data, changes will not be saved: " + e.getMessage());
+        }
+        
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Let queued bookings reach the journal before it is closed
+                if (!controllerService.shutdownAndWait(SHUTDOWN_WAIT_MILLIS)) {
+                    System.err.println("Closing with controller tasks still running; their changes may not be saved");
+                }
+                persistenceManager.close();
+                if (stallMonitor != null) {
+                    System.out.print(stallMonitor.report());
+                }
+            }
+        });
         
         // Initialize main panel with card layout
         cardLayout = new CardLayout();
@@ -244,4 +293,8 @@ public class MainFrame extends JFrame {
     public ReportController getReportController() {
         return reportController;
     }
+
+    public AsyncControllerService getControllerService() {
+        return controllerService;
+    }
 }
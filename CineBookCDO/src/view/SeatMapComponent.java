@@ -0,0 +1,342 @@
+package view;
+
+import model.HallLayout;
+import model.SeatTier;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seat map of a hall drawn as one component, instead of one button per seat.
+ *
+ * Seats are painted from the hall's layout and the showing's taken-seat bitmap. A
+ * click is turned into a seat by its coordinates and reported to action listeners
+ * with the seat id as the action command. Updating the bitmap only repaints the
+ * seats that changed, and switching to another showing in a hall with the same
+ * layout keeps the component as it is.
+ */
+public class SeatMapComponent extends JComponent {
+    public static final Color STANDARD_COLOR = Color.LIGHT_GRAY;
+    public static final Color DELUXE_COLOR = new Color(255, 200, 200); // Light red
+    public static final Color PREMIUM_COLOR = new Color(255, 225, 140); // Light gold
+    public static final Color TAKEN_COLOR = Color.RED;
+    public static final Color SELECTED_COLOR = Color.GREEN;
+
+    private static final int BITS_PER_WORD = 64;
+    private static final int SEAT_SIZE = 40;
+    private static final int SEAT_GAP = 5;
+    private static final int CELL_SIZE = SEAT_SIZE + SEAT_GAP;
+
+    private HallLayout layout;
+    private long[] taken;    // Bit per grid index of the layout
+    private long[] selected; // Bit per grid index of the layout
+    private boolean takenSeatsClickable;
+    private List<ActionListener> actionListeners;
+
+    public SeatMapComponent() {
+        this.taken = new long[0];
+        this.selected = new long[0];
+        this.actionListeners = new ArrayList<>();
+
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        setFont(new Font("Arial", Font.PLAIN, 11));
+        ToolTipManager.sharedInstance().registerComponent(this);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = getSeatIndexAt(e.getX(), e.getY());
+                if (index >= 0 && (takenSeatsClickable || !isBitSet(taken, index))) {
+                    fireSeatClicked(layout.getSeatId(index));
+                }
+            }
+        });
+    }
+
+    /**
+     * Shows a hall and its taken seats. If the layout is the same as before, only the
+     * seats whose state changed are repainted and the selection is kept.
+     */
+    public void setSeats(HallLayout layout, long[] takenSeats) {
+        if (layout == this.layout) {
+            setTakenSeats(takenSeats);
+            return;
+        }
+
+        this.layout = layout;
+        this.taken = takenSeats.clone();
+        this.selected = new long[takenSeats.length];
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Updates the taken seats, repainting only the seats that changed
+     */
+    public void setTakenSeats(long[] takenSeats) {
+        long[] old = taken;
+        taken = takenSeats.clone();
+        for (int word = 0; word < taken.length; word++) {
+            long changed = taken[word] ^ (word < old.length ? old[word] : 0);
+            while (changed != 0) {
+                repaintSeat(word * BITS_PER_WORD + Long.numberOfTrailingZeros(changed));
+                changed &= changed - 1;
+            }
+        }
+    }
+
+    /**
+     * Applies a change to some seats: changedSeats marks the seats that changed and
+     * takenSeats which of them are taken now. Only those seats are repainted, and
+     * selected seats that someone else took are deselected.
+     */
+    public void applySeatChanges(long[] changedSeats, long[] takenSeats) {
+        for (int word = 0; word < changedSeats.length && word < taken.length; word++) {
+            long changed = changedSeats[word];
+            taken[word] = (taken[word] & ~changed) | (takenSeats[word] & changed);
+            selected[word] &= ~(takenSeats[word] & changed);
+            while (changed != 0) {
+                repaintSeat(word * BITS_PER_WORD + Long.numberOfTrailingZeros(changed));
+                changed &= changed - 1;
+            }
+        }
+    }
+
+    /**
+     * Sets whether taken seats can be clicked, e.g. so staff can release them
+     */
+    public void setTakenSeatsClickable(boolean clickable) {
+        this.takenSeatsClickable = clickable;
+    }
+
+    public HallLayout getHallLayout() {
+        return layout;
+    }
+
+    /**
+     * Checks whether a seat is taken
+     */
+    public boolean isTaken(String seatId) {
+        int index = toSeatIndex(seatId);
+        return index >= 0 && isBitSet(taken, index);
+    }
+
+    /**
+     * Checks whether a seat is selected
+     */
+    public boolean isSelected(String seatId) {
+        int index = toSeatIndex(seatId);
+        return index >= 0 && isBitSet(selected, index);
+    }
+
+    /**
+     * Selects or deselects a seat
+     */
+    public void setSelected(String seatId, boolean select) {
+        int index = toSeatIndex(seatId);
+        if (index < 0 || isBitSet(selected, index) == select) {
+            return;
+        }
+
+        selected[index / BITS_PER_WORD] ^= 1L << index;
+        repaintSeat(index);
+    }
+
+    /**
+     * Gets the ids of the selected seats in seat order
+     */
+    public List<String> getSelectedSeats() {
+        List<String> seats = new ArrayList<>();
+        for (int word = 0; word < selected.length; word++) {
+            long bits = selected[word];
+            while (bits != 0) {
+                seats.add(layout.getSeatId(word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Deselects all seats
+     */
+    public void clearSelection() {
+        for (String seatId : getSelectedSeats()) {
+            setSelected(seatId, false);
+        }
+    }
+
+    /**
+     * Registers a listener told about seat clicks; the action command is the seat id
+     */
+    public void addActionListener(ActionListener listener) {
+        actionListeners.add(listener);
+    }
+
+    public void removeActionListener(ActionListener listener) {
+        actionListeners.remove(listener);
+    }
+
+    /**
+     * Gets the grid index of the seat at a point, or -1 if there is no seat there
+     */
+    public int getSeatIndexAt(int x, int y) {
+        if (layout == null) {
+            return -1;
+        }
+
+        int left = x - getGridLeft();
+        int top = y - getGridTop();
+        if (left < 0 || top < 0 || left % CELL_SIZE >= SEAT_SIZE || top % CELL_SIZE >= SEAT_SIZE) {
+            return -1; // Outside the grid or in the space between seats
+        }
+
+        int column = left / CELL_SIZE;
+        int row = top / CELL_SIZE;
+        if (column >= layout.getColumns() || row >= layout.getRows()) {
+            return -1;
+        }
+
+        int index = row * layout.getColumns() + column;
+        return layout.isSeat(index) ? index : -1;
+    }
+
+    /**
+     * Gets the area a seat is painted in
+     */
+    public Rectangle getSeatBounds(int index) {
+        int row = index / layout.getColumns();
+        int column = index % layout.getColumns();
+        return new Rectangle(getGridLeft() + column * CELL_SIZE, getGridTop() + row * CELL_SIZE, SEAT_SIZE, SEAT_SIZE);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet() || layout == null) {
+            return super.getPreferredSize();
+        }
+        return new Dimension(layout.getColumns() * CELL_SIZE + SEAT_GAP, layout.getRows() * CELL_SIZE + SEAT_GAP);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int index = getSeatIndexAt(e.getX(), e.getY());
+        if (index < 0) {
+            return null;
+        }
+
+        SeatTier tier = layout.getTier(index);
+        return layout.getSeatId(index) + " - " + tier.getDisplayName() + " (₱" + String.format("%.2f", tier.getPrice()) + ")"
+                + (isBitSet(taken, index) ? " - taken" : "");
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        }
+        if (layout == null) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            FontMetrics metrics = g2.getFontMetrics();
+
+            // Only paint the rows and columns inside the area being repainted
+            int firstColumn = Math.max(0, (clip.x - getGridLeft()) / CELL_SIZE);
+            int lastColumn = Math.min(layout.getColumns() - 1, (clip.x + clip.width - getGridLeft()) / CELL_SIZE);
+            int firstRow = Math.max(0, (clip.y - getGridTop()) / CELL_SIZE);
+            int lastRow = Math.min(layout.getRows() - 1, (clip.y + clip.height - getGridTop()) / CELL_SIZE);
+
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int index = row * layout.getColumns() + column;
+                    if (layout.isSeat(index)) {
+                        paintSeat(g2, metrics, index);
+                    }
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private void paintSeat(Graphics2D g2, FontMetrics metrics, int index) {
+        Rectangle bounds = getSeatBounds(index);
+        g2.setColor(getSeatColor(index));
+        g2.fillRoundRect(bounds.x, bounds.y, bounds.width, bounds.height, 8, 8);
+        g2.setColor(Color.DARK_GRAY);
+        g2.drawRoundRect(bounds.x, bounds.y, bounds.width - 1, bounds.height - 1, 8, 8);
+
+        String seatId = layout.getSeatId(index);
+        g2.setColor(Color.BLACK);
+        g2.drawString(seatId, bounds.x + (bounds.width - metrics.stringWidth(seatId)) / 2,
+                bounds.y + (bounds.height - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    private Color getSeatColor(int index) {
+        if (isBitSet(selected, index)) {
+            return SELECTED_COLOR;
+        }
+        if (isBitSet(taken, index)) {
+            return TAKEN_COLOR;
+        }
+
+        switch (layout.getTier(index)) {
+            case DELUXE:
+                return DELUXE_COLOR;
+            case PREMIUM:
+                return PREMIUM_COLOR;
+            default:
+                return STANDARD_COLOR;
+        }
+    }
+
+    private void repaintSeat(int index) {
+        if (layout != null && layout.isSeat(index)) {
+            repaint(getSeatBounds(index));
+        }
+    }
+
+    private void fireSeatClicked(String seatId) {
+        ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, seatId);
+        for (ActionListener listener : new ArrayList<>(actionListeners)) {
+            listener.actionPerformed(event);
+        }
+    }
+
+    /**
+     * Gets the x position of the first column; the grid is centred when there is room to spare
+     */
+    private int getGridLeft() {
+        return Math.max(SEAT_GAP, (getWidth() - layout.getColumns() * CELL_SIZE + SEAT_GAP) / 2);
+    }
+
+    private int getGridTop() {
+        return SEAT_GAP;
+    }
+
+    private int toSeatIndex(String seatId) {
+        return layout == null ? -1 : layout.toSeatIndex(seatId);
+    }
+
+    private static boolean isBitSet(long[] bits, int index) {
+        int word = index / BITS_PER_WORD;
+        return word < bits.length && (bits[word] & (1L << index)) != 0;
+    }
+}
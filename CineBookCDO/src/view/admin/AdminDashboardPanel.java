@@ -195,7 +195,7 @@ public class AdminDashboardPanel extends JPanel {
         JPanel bookingsPanel = createStatPanel("Recent Bookings", getRecentBookingsCount());
         
         // Total movies stat
-        JPanel moviesPanel = createStatPanel("Total Movies", movieController.getAllMovies().size());
+        JPanel moviesPanel = createStatPanel("Total Movies", movieController.getMovieCount());
         
         // Total revenue stat
         JPanel revenuePanel = createStatPanel("Total Revenue", 
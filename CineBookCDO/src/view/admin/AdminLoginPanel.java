@@ -8,6 +8,8 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Panel for admin login
@@ -17,6 +19,7 @@ public class AdminLoginPanel extends JPanel {
     private AdminController adminController;
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginButton;
     private JLabel statusLabel;
 
     public AdminLoginPanel(MainFrame mainFrame) {
@@ -90,7 +93,7 @@ public class AdminLoginPanel extends JPanel {
         gbc.gridx = 0;
         gbc.gridy = 3;
         gbc.gridwidth = 2;
-        JButton loginButton = new JButton("Login");
+        loginButton = new JButton("Login");
         loginButton.setBackground(new Color(51, 153, 255));
         loginButton.setForeground(Color.WHITE);
         loginButton.addActionListener(new ActionListener() {
@@ -145,7 +148,20 @@ public class AdminLoginPanel extends JPanel {
             return;
         }
         
-        if (adminController.validateAdminLogin(username, password)) {
+        // Password hashing is slow, so check it off the Swing thread
+        loginButton.setEnabled(false);
+        statusLabel.setText("Checking credentials...");
+        adminController.validateAdminLoginAsync(username, password).whenComplete((valid, error) ->
+                SwingUtilities.invokeLater(() -> finishLogin(error == null && valid, error)));
+    }
+    
+    /**
+     * Shows the result of a login check. Runs on the Swing thread.
+     */
+    private void finishLogin(boolean valid, Throwable error) {
+        loginButton.setEnabled(true);
+        
+        if (valid) {
             statusLabel.setText(" "); // Clear error
             
             // Create and show admin dashboard
@@ -157,6 +173,15 @@ public class AdminLoginPanel extends JPanel {
             usernameField.setText("");
             passwordField.setText("");
             
+        } else if (error != null) {
+            // Failures inside the task arrive wrapped; a full queue is rejected directly
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                statusLabel.setText("Too many login attempts, please try again");
+            } else {
+                System.err.println("Error checking login: " + cause);
+                statusLabel.setText("Login failed: " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+            }
         } else {
             statusLabel.setText("Invalid username or password");
             passwordField.setText("");
@@ -1,15 +1,18 @@
 package view.admin;
 
+import controller.AsyncControllerService;
 import controller.ReportController;
+import controller.ReportExporter;
+import controller.ReportSeries;
 import view.MainFrame;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.util.Map;
 
 /**
  * Panel for generating and viewing reports
@@ -17,13 +20,20 @@ import java.util.Map;
 public class ReportPanel extends JPanel {
     private MainFrame mainFrame;
     private ReportController reportController;
+    private AsyncControllerService controllerService;
     private JTextArea reportTextArea;
     private JComboBox<String> reportTypeComboBox;
+    private JButton exportButton;
+    private JProgressBar progressBar;
+    private JPanel chartPanel;
+    private ReportSeries chartSeries; // Rows the chart is drawn from; null until the first report arrives
     private String currentReportType;
+    private int reportRequest; // Counts report requests, so an older report finishing late is ignored
 
     public ReportPanel(MainFrame mainFrame) {
         this.mainFrame = mainFrame;
         this.reportController = mainFrame.getReportController();
+        this.controllerService = mainFrame.getControllerService();
         this.currentReportType = "Tickets Per Movie";
         
         setLayout(new BorderLayout());
@@ -95,7 +105,7 @@ public class ReportPanel extends JPanel {
             }
         });
         
-        JButton exportButton = new JButton("Export to File");
+        exportButton = new JButton("Export to File");
         exportButton.setAlignmentX(Component.LEFT_ALIGNMENT);
         exportButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, exportButton.getPreferredSize().height));
         exportButton.addActionListener(new ActionListener() {
@@ -132,7 +142,7 @@ public class ReportPanel extends JPanel {
                 "Reports provide insights into ticket sales, revenue, and seat occupancy.\n\n" +
                 "- Select a report type from the dropdown\n" +
                 "- Click 'Generate Report' to refresh data\n" +
-                "- Use 'Export to File' to save as text\n" +
+                "- Use 'Export to File' to save as text, or the booking history as CSV, JSON Lines or BI data\n" +
                 "- 'Print Report' simulates printing"
         );
         helpText.setEditable(false);
@@ -167,8 +177,20 @@ public class ReportPanel extends JPanel {
         reportTextArea.setEditable(false);
         reportTextArea.setFont(new Font("Monospaced", Font.PLAIN, 14));
         
+        // Shown while a report is being built or exported
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        
+        // Chart of the same rows below the text
+        chartPanel = createChartPanel();
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(reportTextArea), chartPanel);
+        splitPane.setResizeWeight(0.5);
+        
         // Add to panel
-        panel.add(new JScrollPane(reportTextArea), BorderLayout.CENTER);
+        panel.add(splitPane, BorderLayout.CENTER);
+        panel.add(progressBar, BorderLayout.SOUTH);
         
         return panel;
     }
@@ -177,18 +199,62 @@ public class ReportPanel extends JPanel {
      * Generates and displays the selected report
      */
     private void generateReport() {
-        String reportText = reportController.getReportAsString(currentReportType);
-        reportTextArea.setText(reportText);
+        int request = ++reportRequest;
+        showProgress("Generating report...");
+        controllerService.getReportSeries(currentReportType).whenComplete((series, error) ->
+                SwingUtilities.invokeLater(() -> finishReport(request, series, error)));
+    }
+    
+    /**
+     * Shows a finished report and its chart, unless a newer one has been asked for since.
+     * Runs on the Swing thread.
+     */
+    private void finishReport(int request, ReportSeries series, Throwable error) {
+        if (request != reportRequest) {
+            return;
+        }
+        
+        hideProgress();
+        if (error != null) {
+            System.err.println("Error generating report: " + error.getMessage());
+            reportTextArea.setText("The report could not be generated. Please try again.");
+        } else if (series == null) {
+            reportTextArea.setText("Unknown report type");
+        } else {
+            reportTextArea.setText(reportController.formatReport(series));
+        }
         reportTextArea.setCaretPosition(0); // Scroll to top
+        
+        // The chart only repaints when a different series arrives; an unchanged report is the same instance
+        ReportSeries newSeries = error == null ? series : null;
+        if (newSeries != chartSeries) {
+            chartSeries = newSeries;
+            chartPanel.repaint();
+        }
     }
     
     /**
-     * Exports the current report to a text file
+     * Exports the current report to a text file, or the whole booking history as CSV,
+     * JSON Lines or the columnar format, depending on the file type picked
      */
     private void exportReport() {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export Report");
         
+        FileNameExtensionFilter textFilter = new FileNameExtensionFilter("Report as text (*.txt)", "txt");
+        FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("Booking history as CSV (*.csv)",
+                ReportExporter.Format.CSV.getExtension());
+        FileNameExtensionFilter jsonFilter = new FileNameExtensionFilter("Booking history as JSON Lines (*.jsonl)",
+                ReportExporter.Format.JSON_LINES.getExtension());
+        FileNameExtensionFilter columnarFilter = new FileNameExtensionFilter("Booking history for BI loader (*.cbx)",
+                ReportExporter.Format.COLUMNAR.getExtension());
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(textFilter);
+        fileChooser.addChoosableFileFilter(csvFilter);
+        fileChooser.addChoosableFileFilter(jsonFilter);
+        fileChooser.addChoosableFileFilter(columnarFilter);
+        fileChooser.setFileFilter(textFilter);
+        
         // Set default file name
         String defaultFileName = "CineBook_" + currentReportType.replace(" ", "_") + "_Report.txt";
         fileChooser.setSelectedFile(new File(defaultFileName));
@@ -196,26 +262,63 @@ public class ReportPanel extends JPanel {
         int userSelection = fileChooser.showSaveDialog(this);
         
         if (userSelection == JFileChooser.APPROVE_OPTION) {
+            FileNameExtensionFilter filter = (FileNameExtensionFilter) fileChooser.getFileFilter();
             File fileToSave = fileChooser.getSelectedFile();
+            if (!filter.accept(fileToSave)) {
+                fileToSave = new File(fileToSave.getPath() + "." + filter.getExtensions()[0]);
+            }
+            File exportedFile = fileToSave;
             
-            boolean success = reportController.exportReportToFile(currentReportType, fileToSave.getAbsolutePath());
-            
-            if (success) {
-                JOptionPane.showMessageDialog(mainFrame,
-                        "Report exported successfully to:\n" + fileToSave.getAbsolutePath(),
-                        "Report Exported",
-                        JOptionPane.INFORMATION_MESSAGE);
+            exportButton.setEnabled(false);
+            showProgress("Exporting report...");
+            if (filter == textFilter) {
+                controllerService.exportReportToFile(currentReportType, exportedFile.getAbsolutePath()).whenComplete(
+                        (success, error) -> SwingUtilities.invokeLater(() ->
+                                finishExport(exportedFile, error == null && success)));
             } else {
-                JOptionPane.showMessageDialog(mainFrame,
-                        "Error exporting report. Please try again.",
-                        "Export Error",
-                        JOptionPane.ERROR_MESSAGE);
+                ReportExporter.Format format = filter == csvFilter ? ReportExporter.Format.CSV
+                        : filter == jsonFilter ? ReportExporter.Format.JSON_LINES : ReportExporter.Format.COLUMNAR;
+                controllerService.exportBookingHistory(format, exportedFile.getAbsolutePath()).whenComplete(
+                        (rows, error) -> SwingUtilities.invokeLater(() ->
+                                finishExport(exportedFile, error == null && rows >= 0)));
             }
         }
     }
     
     /**
-     * Creates a visual chart for the current report
+     * Tells the user how an export went. Runs on the Swing thread.
+     */
+    private void finishExport(File fileToSave, boolean success) {
+        exportButton.setEnabled(true);
+        hideProgress();
+        
+        if (success) {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Report exported successfully to:\n" + fileToSave.getAbsolutePath(),
+                    "Report Exported",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Error exporting report. Please try again.",
+                    "Export Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    private void showProgress(String message) {
+        progressBar.setString(message);
+        progressBar.setVisible(true);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+    }
+    
+    private void hideProgress() {
+        progressBar.setVisible(false);
+        setCursor(Cursor.getDefaultCursor());
+    }
+    
+    /**
+     * Creates a visual chart for the current report. It is drawn from the last report
+     * series only, so resizing or uncovering it never recomputes the report.
      */
     private JPanel createChartPanel() {
         // This is a simple visual representation of data - not a full chart library
@@ -223,77 +326,44 @@ public class ReportPanel extends JPanel {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
+                ReportSeries series = chartSeries;
+                if (series == null || series.isEmpty()) {
+                    return;
+                }
+                
                 Graphics2D g2d = (Graphics2D) g.create();
                 
-                // Get data based on report type
-                Map<String, ?> data = null;
+                // Chart dimensions
+                int margin = 50;
+                int barWidth = (getWidth() - 2 * margin) / series.size();
+                int maxHeight = getHeight() - 2 * margin;
                 
-                switch (currentReportType) {
-                    case "Tickets Per Movie":
-                        data = reportController.generateTicketsPerMovieReport();
-                        break;
-                    case "Tickets Per Cinema":
-                        data = reportController.generateTicketsPerCinemaReport();
-                        break;
-                    case "Revenue Per Movie":
-                        data = reportController.generateRevenuePerMovieReport();
-                        break;
-                    case "Revenue Per Cinema":
-                        data = reportController.generateRevenuePerCinemaReport();
-                        break;
-                    case "Seat Occupancy":
-                        data = reportController.generateSeatOccupancyReport();
-                        break;
-                }
+                // Scale to the largest value, which the series works out once when it is built
+                double maxValue = series.getMaxValue();
                 
-                if (data != null && !data.isEmpty()) {
-                    // Draw chart here based on data
-                    // This would be a simple bar chart
+                // Draw bars
+                for (int i = 0; i < series.size(); i++) {
+                    String key = series.getLabel(i);
+                    double value = series.getValue(i);
+                    
+                    // Calculate bar height (scaled)
+                    int barHeight = maxValue > 0 ? (int) (value / maxValue * maxHeight) : 0;
                     
-                    // Chart dimensions
-                    int margin = 50;
-                    int barWidth = (getWidth() - 2 * margin) / data.size();
-                    int maxHeight = getHeight() - 2 * margin;
+                    // Draw bar
+                    g2d.setColor(new Color(51, 153, 255));
+                    g2d.fillRect(margin + i * barWidth, getHeight() - margin - barHeight, 
+                            barWidth - 10, barHeight);
                     
-                    // Find max value for scaling
-                    double maxValue = 0;
-                    for (Object value : data.values()) {
-                        if (value instanceof Number) {
-                            maxValue = Math.max(maxValue, ((Number) value).doubleValue());
-                        }
-                    }
+                    // Draw label
+                    g2d.setColor(Color.BLACK);
+                    g2d.rotate(-Math.PI/2, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
+                    g2d.drawString(key, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
+                    g2d.rotate(Math.PI/2, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
                     
-                    // Draw bars
-                    int i = 0;
-                    for (Map.Entry<String, ?> entry : data.entrySet()) {
-                        String key = entry.getKey();
-                        double value = 0;
-                        
-                        if (entry.getValue() instanceof Number) {
-                            value = ((Number) entry.getValue()).doubleValue();
-                        }
-                        
-                        // Calculate bar height (scaled)
-                        int barHeight = (int) (value / maxValue * maxHeight);
-                        
-                        // Draw bar
-                        g2d.setColor(new Color(51, 153, 255));
-                        g2d.fillRect(margin + i * barWidth, getHeight() - margin - barHeight, 
-                                barWidth - 10, barHeight);
-                        
-                        // Draw label
-                        g2d.setColor(Color.BLACK);
-                        g2d.rotate(-Math.PI/2, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
-                        g2d.drawString(key, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
-                        g2d.rotate(Math.PI/2, margin + i * barWidth + barWidth/2, getHeight() - margin + 25);
-                        
-                        // Draw value
-                        g2d.drawString(String.format("%.1f", value), 
-                                margin + i * barWidth + barWidth/2 - 10, 
-                                getHeight() - margin - barHeight - 5);
-                        
-                        i++;
-                    }
+                    // Draw value
+                    g2d.drawString(series.formatValue(value), 
+                            margin + i * barWidth + barWidth/2 - 10, 
+                            getHeight() - margin - barHeight - 5);
                 }
                 
                 g2d.dispose();
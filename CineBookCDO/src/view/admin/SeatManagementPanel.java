@@ -1,16 +1,20 @@
 package view.admin;
 
+import controller.BookingController;
 import controller.MovieController;
-import model.Cinema;
 import model.Movie;
-import model.Seat;
+import model.Showing;
+import view.LiveSeatMapUpdater;
 import view.MainFrame;
+import view.SeatMapComponent;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,16 +23,22 @@ import java.util.List;
 public class SeatManagementPanel extends JPanel {
     private MainFrame mainFrame;
     private MovieController movieController;
+    private BookingController bookingController;
     private JComboBox<Movie> movieComboBox;
     private JComboBox<String> cinemaComboBox;
     private JComboBox<String> showtimeComboBox;
     private JPanel seatingChartPanel;
-    private JButton[][] seatButtons;
+    private JLabel emptyLabel;
+    private JScrollPane seatMapScrollPane;
+    private SeatMapComponent seatMap;
+    private Showing showing; // Showing whose seats are on the map
+    private LiveSeatMapUpdater seatMapUpdater; // Follows the showing's seat changes while shown
     private JLabel statusLabel;
 
     public SeatManagementPanel(MainFrame mainFrame) {
         this.mainFrame = mainFrame;
         this.movieController = mainFrame.getMovieController();
+        this.bookingController = mainFrame.getBookingController();
         
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(20, 20, 20, 20));
@@ -55,9 +65,20 @@ public class SeatManagementPanel extends JPanel {
         seatingChartPanel.add(screenPanel, BorderLayout.NORTH);
         
         // Empty message initially
-        JLabel emptyLabel = new JLabel("Select a movie, cinema, and showtime to manage seats", JLabel.CENTER);
+        emptyLabel = new JLabel("Select a movie, cinema, and showtime to manage seats", JLabel.CENTER);
         seatingChartPanel.add(emptyLabel, BorderLayout.CENTER);
         
+        // Seat map, shown once a showtime is selected and then updated in place
+        seatMap = new SeatMapComponent();
+        seatMap.setTakenSeatsClickable(true);
+        seatMap.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleSeatAvailability(e.getActionCommand());
+            }
+        });
+        seatMapScrollPane = new JScrollPane(seatMap);
+        
         // Create status panel
         JPanel statusPanel = new JPanel(new BorderLayout());
         statusLabel = new JLabel(" ");
@@ -66,9 +87,10 @@ public class SeatManagementPanel extends JPanel {
         // Create legend panel
         JPanel legendPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         legendPanel.add(createLegendItem("Available", Color.WHITE));
-        legendPanel.add(createLegendItem("Booked", Color.RED));
-        legendPanel.add(createLegendItem("Standard", Color.LIGHT_GRAY));
-        legendPanel.add(createLegendItem("Deluxe", new Color(255, 200, 200)));
+        legendPanel.add(createLegendItem("Booked", SeatMapComponent.TAKEN_COLOR));
+        legendPanel.add(createLegendItem("Standard", SeatMapComponent.STANDARD_COLOR));
+        legendPanel.add(createLegendItem("Deluxe", SeatMapComponent.DELUXE_COLOR));
+        legendPanel.add(createLegendItem("Premium", SeatMapComponent.PREMIUM_COLOR));
         
         statusPanel.add(legendPanel, BorderLayout.EAST);
         
@@ -91,8 +113,18 @@ public class SeatManagementPanel extends JPanel {
             }
         });
         
+        JButton blockRowButton = new JButton("Block Row...");
+        blockRowButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                blockRow();
+            }
+        });
+        
+        actionsPanel.add(blockRowButton);
         actionsPanel.add(resetAllButton);
         actionsPanel.add(refreshButton);
+        statusPanel.add(actionsPanel, BorderLayout.SOUTH);
         
         // Add components to main panel
         add(titleLabel, BorderLayout.NORTH);
@@ -183,6 +215,7 @@ public class SeatManagementPanel extends JPanel {
                 "• Select a movie, cinema, and showtime\n" +
                 "• Click on seats to toggle availability\n" +
                 "• Red seats are currently booked\n" +
+                "• 'Block Row' keeps a whole row out of sale\n" +
                 "• 'Reset All Seats' will make all seats available\n" +
                 "• Click 'Refresh' to update the display"
         );
@@ -277,7 +310,8 @@ public class SeatManagementPanel extends JPanel {
     }
     
     /**
-     * Updates the seating chart based on the selected movie, cinema, and showtime
+     * Updates the seating chart based on the selected movie, cinema, and showtime.
+     * The seat map is updated in place; only seats whose state changed are repainted.
      */
     private void updateSeatingChart() {
         Movie selectedMovie = (Movie) movieComboBox.getSelectedItem();
@@ -288,121 +322,97 @@ public class SeatManagementPanel extends JPanel {
             return;
         }
         
-        // Remove current seating chart
-        seatingChartPanel.removeAll();
-        
-        // Get cinema information
-        Cinema cinema = movieController.getCinemaByName(selectedCinema);
-        if (cinema == null) {
-            return;
+        // Follow the new showing's seat changes; starting reloads the map in place
+        if (seatMapUpdater != null) {
+            seatMapUpdater.stop();
         }
-        
-        // Re-add screen panel
-        JPanel screenPanel = new JPanel();
-        screenPanel.setBackground(Color.DARK_GRAY);
-        screenPanel.setPreferredSize(new Dimension(100, 30));
-        JLabel screenLabel = new JLabel("SCREEN");
-        screenLabel.setForeground(Color.WHITE);
-        screenPanel.add(screenLabel);
-        
-        seatingChartPanel.add(screenPanel, BorderLayout.NORTH);
-        
-        // Create seats panel
-        JPanel seatsPanel = new JPanel();
-        int rows = cinema.getRows();
-        int cols = cinema.getColumns();
-        seatsPanel.setLayout(new GridLayout(rows, cols, 5, 5));
-        
-        // Create seat buttons
-        seatButtons = new JButton[rows][cols];
-        
-        for (int row = 0; row < rows; row++) {
-            for (int col = 0; col < cols; col++) {
-                final int r = row;
-                final int c = col;
-                
-                // Get seat information
-                String seatId = (char) ('A' + row) + String.valueOf(col + 1);
-                Seat seat = cinema.getSeatById(seatId);
-                
-                // Create seat button
-                JButton seatButton = new JButton(seatId);
-                seatButton.setMargin(new Insets(2, 2, 2, 2));
-                seatButton.setPreferredSize(new Dimension(50, 40));
-                
-                // Set button color based on seat type and availability
-                if (seat != null) {
-                    boolean isAvailable = movieController.isSeatAvailable(
-                            selectedCinema, selectedMovie.getTitle(), selectedShowtime, seatId);
-                    
-                    if (!isAvailable) {
-                        seatButton.setBackground(Color.RED);
-                    } else if (seat.getType().equals("Deluxe")) {
-                        seatButton.setBackground(new Color(255, 200, 200)); // Light red for deluxe
-                    } else {
-                        seatButton.setBackground(Color.LIGHT_GRAY); // Gray for standard
-                    }
-                    
-                    // Add action listener
-                    final Seat finalSeat = seat;
-                    seatButton.addActionListener(new ActionListener() {
-                        @Override
-                        public void actionPerformed(ActionEvent e) {
-                            toggleSeatAvailability(r, c, seatId, finalSeat);
-                        }
-                    });
-                }
-                
-                // Add to array and panel
-                seatButtons[row][col] = seatButton;
-                seatsPanel.add(seatButton);
-            }
+        showing = bookingController.getShowing(selectedMovie.getId(), movieController.getCinemaId(selectedCinema),
+                LocalDateTime.parse(selectedShowtime));
+        seatMapUpdater = new LiveSeatMapUpdater(bookingController, showing, seatMap, null);
+        seatMapUpdater.start();
+        
+        // Replace the empty message with the seat map the first time
+        if (seatMapScrollPane.getParent() == null) {
+            seatingChartPanel.remove(emptyLabel);
+            seatingChartPanel.add(seatMapScrollPane, BorderLayout.CENTER);
+            seatingChartPanel.revalidate();
+            seatingChartPanel.repaint();
         }
         
-        // Add seats panel to seating chart
-        seatingChartPanel.add(seatsPanel, BorderLayout.CENTER);
-        
         // Update status
         statusLabel.setText("Showing seats for " + selectedMovie.getTitle() + 
                 " at " + selectedCinema + ", " + selectedShowtime);
-        
-        // Refresh layout
-        seatingChartPanel.revalidate();
-        seatingChartPanel.repaint();
+    }
+    
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (seatMapUpdater != null) {
+            seatMapUpdater.start();
+        }
+    }
+    
+    @Override
+    public void removeNotify() {
+        if (seatMapUpdater != null) {
+            seatMapUpdater.stop();
+        }
+        super.removeNotify();
     }
     
     /**
-     * Toggles the availability of a seat
+     * Toggles the availability of a seat: a free seat is blocked, a blocked seat is
+     * unblocked and a sold seat's booking is cancelled. Held seats are left alone.
      */
-    private void toggleSeatAvailability(int row, int col, String seatId, Seat seat) {
-        Movie selectedMovie = (Movie) movieComboBox.getSelectedItem();
-        String selectedCinema = (String) cinemaComboBox.getSelectedItem();
-        String selectedShowtime = (String) showtimeComboBox.getSelectedItem();
-        
-        if (selectedMovie == null || selectedCinema == null || selectedShowtime == null) {
+    private void toggleSeatAvailability(String seatId) {
+        if (showing == null) {
             return;
         }
         
-        boolean isAvailable = movieController.isSeatAvailable(
-                selectedCinema, selectedMovie.getTitle(), selectedShowtime, seatId);
-        
-        JButton seatButton = seatButtons[row][col];
-        
-        if (isAvailable) {
-            // Book the seat
-            movieController.bookSeat(selectedCinema, selectedMovie.getTitle(), selectedShowtime, seatId);
-            seatButton.setBackground(Color.RED);
-        } else {
-            // Release the seat
-            movieController.releaseSeat(selectedCinema, selectedMovie.getTitle(), selectedShowtime, seatId);
-            
-            // Reset button color based on seat type
-            if (seat.getType().equals("Deluxe")) {
-                seatButton.setBackground(new Color(255, 200, 200)); // Light red for deluxe
-            } else {
-                seatButton.setBackground(Color.LIGHT_GRAY); // Gray for standard
+        List<String> seats = Collections.singletonList(seatId);
+        if (bookingController.getBlockedSeats(showing).contains(seatId)) {
+            // Make a blocked seat available again
+            if (!bookingController.unblockSeats(showing, seats).isEmpty()) {
+                statusLabel.setText("Seat " + seatId + " unblocked");
+            }
+        } else if (bookingController.areSeatsSold(showing, seats)) {
+            // Cancel the sale of a sold seat
+            if (bookingController.cancelBooking(showing, seats)) {
+                statusLabel.setText("Booking of seat " + seatId + " cancelled");
+            }
+        } else if (bookingController.areSeatsAvailable(showing, seats)) {
+            // Take a free seat out of sale, without recording a sale
+            if (!bookingController.blockSeats(showing, seats).isEmpty()) {
+                statusLabel.setText("Seat " + seatId + " blocked");
             }
+        } else {
+            // Held by a customer who is paying; the hold ends on its own
+            statusLabel.setText("Seat " + seatId + " is held by a customer and cannot be changed");
+        }
+        seatMap.setTakenSeats(bookingController.getTakenSeats(showing));
+    }
+    
+    /**
+     * Blocks a whole row of the selected show, e.g. for a private event
+     */
+    private void blockRow() {
+        if (showing == null) {
+            JOptionPane.showMessageDialog(mainFrame,
+                    "Please select a movie, cinema, and showtime first",
+                    "Selection Required",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        
+        String row = JOptionPane.showInputDialog(mainFrame, "Row to block (e.g. F):", "Block Row",
+                JOptionPane.QUESTION_MESSAGE);
+        if (row == null || row.trim().length() != 1) {
+            return;
         }
+        
+        List<String> blocked = bookingController.blockRow(showing, row.trim().charAt(0));
+        seatMap.setTakenSeats(bookingController.getTakenSeats(showing));
+        statusLabel.setText("Blocked " + blocked.size() + " seats in row " + row.trim().toUpperCase());
     }
     
     /**
@@ -429,25 +439,37 @@ public class SeatManagementPanel extends JPanel {
                 JOptionPane.WARNING_MESSAGE);
                 
         if (choice == JOptionPane.YES_OPTION) {
-            // Get cinema information
-            Cinema cinema = movieController.getCinemaByName(selectedCinema);
-            if (cinema == null) {
-                return;
-            }
-            
-            // Reset all seats
-            for (Seat seat : cinema.getSeats()) {
-                movieController.releaseSeat(
-                        selectedCinema, selectedMovie.getTitle(), selectedShowtime, seat.getSeatId());
-            }
-            
-            // Update seating chart
+            // Reset all seats in one step, off the Swing thread since it writes the journal
             updateSeatingChart();
-            
+            Showing resetShowing = showing;
+            statusLabel.setText("Resetting seats...");
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            mainFrame.getControllerService().releaseAllSeats(resetShowing).whenComplete((freed, error) ->
+                    SwingUtilities.invokeLater(() -> finishReset(resetShowing, error)));
+        }
+    }
+    
+    /**
+     * Tells the user the seats were reset. Runs on the Swing thread.
+     */
+    private void finishReset(Showing resetShowing, Throwable error) {
+        setCursor(Cursor.getDefaultCursor());
+        if (error != null) {
+            System.err.println("Error resetting seats: " + error.getMessage());
             JOptionPane.showMessageDialog(mainFrame,
-                    "All seats have been reset to available",
-                    "Seats Reset",
-                    JOptionPane.INFORMATION_MESSAGE);
+                    "The seats could not be reset. Please try again.",
+                    "Reset Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        if (resetShowing == showing) {
+            seatMap.setTakenSeats(bookingController.getTakenSeats(showing));
         }
+        statusLabel.setText("All seats reset to available");
+        JOptionPane.showMessageDialog(mainFrame,
+                "All seats have been reset to available",
+                "Seats Reset",
+                JOptionPane.INFORMATION_MESSAGE);
     }
 }
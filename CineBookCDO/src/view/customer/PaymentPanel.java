@@ -207,7 +207,8 @@ public class PaymentPanel extends JPanel {
                         JOptionPane.YES_NO_OPTION);
                 
                 if (choice == JOptionPane.YES_OPTION) {
-                    // Cancel booking and go back to movie list
+                    // Give the held seats back and go back to movie list
+                    bookingController.releaseHold(booking.getHoldId());
                     JOptionPane.showMessageDialog(mainFrame, 
                             "Booking cancelled successfully.", 
                             "Booking Cancelled", 
@@ -369,22 +370,12 @@ public class PaymentPanel extends JPanel {
         Timer timer = new Timer(2000, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                processingDialog.dispose();
-                
-                // Complete the booking
-                booking.setPaymentMethod(paymentMethod);
-                bookingController.completeBooking(booking, paymentMethod);
-                
-                // Show ticket panel
-                TicketPanel ticketPanel = new TicketPanel(mainFrame, booking);
-                mainFrame.addPanel(ticketPanel, "TicketPanel");
-                mainFrame.showPanel("TicketPanel");
-                
-                // Show success message
-                JOptionPane.showMessageDialog(mainFrame, 
-                        "Payment successful! Your booking is confirmed.", 
-                        "Payment Successful", 
-                        JOptionPane.INFORMATION_MESSAGE);
+                // Confirm the sale off the Swing thread (it waits for the journal), keeping the dialog up meanwhile
+                mainFrame.getControllerService().confirmHold(booking.getHoldId()).whenComplete((confirmed, error) ->
+                        SwingUtilities.invokeLater(() -> {
+                            processingDialog.dispose();
+                            finishPayment(paymentMethod, error == null && confirmed);
+                        }));
             }
         });
         
@@ -393,4 +384,34 @@ public class PaymentPanel extends JPanel {
         
         processingDialog.setVisible(true);
     }
+    
+    /**
+     * Completes the booking once the sale is confirmed. Runs on the Swing thread.
+     */
+    private void finishPayment(String paymentMethod, boolean confirmed) {
+        // The seats are only ours if the hold has not expired
+        if (!confirmed) {
+            JOptionPane.showMessageDialog(mainFrame, 
+                    "Your seat reservation has expired. Please select your seats again.", 
+                    "Reservation Expired", 
+                    JOptionPane.WARNING_MESSAGE);
+            mainFrame.showPanel("SeatSelectionPanel");
+            return;
+        }
+        
+        // Complete the booking
+        booking.setPaymentMethod(paymentMethod);
+        bookingController.completeBooking(booking, paymentMethod);
+        
+        // Show ticket panel
+        TicketPanel ticketPanel = new TicketPanel(mainFrame, booking);
+        mainFrame.addPanel(ticketPanel, "TicketPanel");
+        mainFrame.showPanel("TicketPanel");
+        
+        // Show success message
+        JOptionPane.showMessageDialog(mainFrame, 
+                "Payment successful! Your booking is confirmed.", 
+                "Payment Successful", 
+                JOptionPane.INFORMATION_MESSAGE);
+    }
 }
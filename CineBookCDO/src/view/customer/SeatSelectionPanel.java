@@ -3,16 +3,22 @@ package view.customer;
 import controller.BookingController;
 import controller.MovieController;
 import model.Booking;
-import model.Cinema;
 import model.Movie;
 import model.Seat;
+import model.SeatHold;
+import model.SeatTier;
+import model.Session;
+import model.Showing;
+import view.LiveSeatMapUpdater;
 import view.MainFrame;
+import view.SeatMapComponent;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,9 +32,10 @@ public class SeatSelectionPanel extends JPanel {
     private Movie movie;
     private String cinema;
     private String showtime;
+    private Showing showing;
     private List<Seat> selectedSeats;
-    private JPanel seatsPanel;
-    private JButton[][] seatButtons;
+    private SeatMapComponent seatMap;
+    private LiveSeatMapUpdater seatMapUpdater; // Keeps the map current while the panel is shown
     private JLabel totalLabel;
     private double totalAmount;
 
@@ -85,13 +92,14 @@ public class SeatSelectionPanel extends JPanel {
         infoPanel.add(totalLabel);
         
         // Create legend panel
-        JPanel legendPanel = new JPanel(new GridLayout(1, 4, 10, 0));
+        JPanel legendPanel = new JPanel(new GridLayout(1, 5, 10, 0));
         legendPanel.setBorder(BorderFactory.createTitledBorder("Legend"));
         
         JPanel availablePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JPanel selectedPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JPanel standardPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         JPanel deluxePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JPanel premiumPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         
         JButton availableButton = new JButton();
         availableButton.setEnabled(false);
@@ -101,17 +109,22 @@ public class SeatSelectionPanel extends JPanel {
         JButton selectedButton = new JButton();
         selectedButton.setEnabled(false);
         selectedButton.setPreferredSize(new Dimension(20, 20));
-        selectedButton.setBackground(Color.GREEN);
+        selectedButton.setBackground(SeatMapComponent.SELECTED_COLOR);
         
         JButton standardButton = new JButton();
         standardButton.setEnabled(false);
         standardButton.setPreferredSize(new Dimension(20, 20));
-        standardButton.setBackground(Color.LIGHT_GRAY);
+        standardButton.setBackground(SeatMapComponent.STANDARD_COLOR);
         
         JButton deluxeButton = new JButton();
         deluxeButton.setEnabled(false);
         deluxeButton.setPreferredSize(new Dimension(20, 20));
-        deluxeButton.setBackground(new Color(255, 200, 200)); // Light red
+        deluxeButton.setBackground(SeatMapComponent.DELUXE_COLOR);
+        
+        JButton premiumButton = new JButton();
+        premiumButton.setEnabled(false);
+        premiumButton.setPreferredSize(new Dimension(20, 20));
+        premiumButton.setBackground(SeatMapComponent.PREMIUM_COLOR);
         
         availablePanel.add(availableButton);
         availablePanel.add(new JLabel("Available"));
@@ -120,15 +133,19 @@ public class SeatSelectionPanel extends JPanel {
         selectedPanel.add(new JLabel("Selected"));
         
         standardPanel.add(standardButton);
-        standardPanel.add(new JLabel("Standard (₱180)"));
+        standardPanel.add(new JLabel(legendText(SeatTier.STANDARD)));
         
         deluxePanel.add(deluxeButton);
-        deluxePanel.add(new JLabel("Deluxe (₱250)"));
+        deluxePanel.add(new JLabel(legendText(SeatTier.DELUXE)));
+        
+        premiumPanel.add(premiumButton);
+        premiumPanel.add(new JLabel(legendText(SeatTier.PREMIUM)));
         
         legendPanel.add(availablePanel);
         legendPanel.add(selectedPanel);
         legendPanel.add(standardPanel);
         legendPanel.add(deluxePanel);
+        legendPanel.add(premiumPanel);
         
         // Create seating chart panel
         JPanel seatingChartPanel = new JPanel(new BorderLayout());
@@ -142,64 +159,25 @@ public class SeatSelectionPanel extends JPanel {
         screenLabel.setForeground(Color.WHITE);
         screenPanel.add(screenLabel);
         
-        // Get cinema information
-        Cinema cinemaObj = movieController.getCinemaByName(cinema);
-        if (cinemaObj != null) {
-            // Create seats panel
-            seatsPanel = new JPanel();
-            int rows = cinemaObj.getRows();
-            int cols = cinemaObj.getColumns();
-            seatsPanel.setLayout(new GridLayout(rows, cols, 5, 5));
-            
-            // Create seat buttons
-            seatButtons = new JButton[rows][cols];
-            
-            for (int row = 0; row < rows; row++) {
-                for (int col = 0; col < cols; col++) {
-                    final int r = row;
-                    final int c = col;
-                    
-                    // Get seat information
-                    String seatId = (char) ('A' + row) + String.valueOf(col + 1);
-                    Seat seat = cinemaObj.getSeatById(seatId);
-                    
-                    // Create seat button
-                    JButton seatButton = new JButton(seatId);
-                    seatButton.setMargin(new Insets(2, 2, 2, 2));
-                    seatButton.setPreferredSize(new Dimension(50, 40));
-                    
-                    // Set button color based on seat type
-                    if (seat != null && seat.getType().equals("Deluxe")) {
-                        seatButton.setBackground(new Color(255, 200, 200)); // Light red for deluxe
-                    } else {
-                        seatButton.setBackground(Color.LIGHT_GRAY); // Gray for standard
-                    }
-                    
-                    // Check if seat is available
-                    boolean isAvailable = movieController.isSeatAvailable(cinema, movie.getTitle(), showtime, seatId);
-                    seatButton.setEnabled(isAvailable);
-                    
-                    if (!isAvailable) {
-                        seatButton.setBackground(Color.RED);
-                    }
-                    
-                    // Add action listener
-                    seatButton.addActionListener(new ActionListener() {
-                        @Override
-                        public void actionPerformed(ActionEvent e) {
-                            toggleSeatSelection(r, c, seatId);
-                        }
-                    });
-                    
-                    // Add to array and panel
-                    seatButtons[row][col] = seatButton;
-                    seatsPanel.add(seatButton);
-                }
+        // Create seat map
+        showing = bookingController.getShowing(movie.getId(), movieController.getCinemaId(cinema),
+                LocalDateTime.parse(showtime));
+        seatMap = new SeatMapComponent();
+        seatMap.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleSeatSelection(e.getActionCommand());
             }
-        }
+        });
+        seatMapUpdater = new LiveSeatMapUpdater(bookingController, showing, seatMap, new Runnable() {
+            @Override
+            public void run() {
+                dropSeatsTakenByOthers();
+            }
+        });
         
         seatingChartPanel.add(screenPanel, BorderLayout.NORTH);
-        seatingChartPanel.add(seatsPanel, BorderLayout.CENTER);
+        seatingChartPanel.add(new JScrollPane(seatMap), BorderLayout.CENTER);
         
         // Create buttons panel
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -224,17 +202,23 @@ public class SeatSelectionPanel extends JPanel {
                     return;
                 }
                 
-                // Create booking object
+                // Create booking object, priced by the hall the same way as the total above
+                List<String> seatIds = new ArrayList<>();
+                for (Seat seat : selectedSeats) {
+                    seatIds.add(seat.getId());
+                }
                 Booking booking = bookingController.createBooking(
-                        mainFrame.getCurrentUsername(), movie, cinema, showtime);
+                        mainFrame.getUserController().getCurrentUser(), showing, seatIds);
                 
-                // Add selected seats to booking
-                bookingController.addSeatsToBooking(booking, selectedSeats);
-                
-                // Go to snack selection
-                SnackSelectionPanel snackPanel = new SnackSelectionPanel(mainFrame, booking);
-                mainFrame.addPanel(snackPanel, "SnackSelectionPanel");
-                mainFrame.showPanel("SnackSelectionPanel");
+                // Hold the seats so nobody else can take them while the customer pays, off the Swing thread
+                continueButton.setEnabled(false);
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                mainFrame.getControllerService().holdSeats(showing, booking.getSeats()).whenComplete((hold, error) ->
+                        SwingUtilities.invokeLater(() -> {
+                            continueButton.setEnabled(true);
+                            setCursor(Cursor.getDefaultCursor());
+                            finishHold(booking, error == null ? hold : null);
+                        }));
             }
         });
         
@@ -257,75 +241,96 @@ public class SeatSelectionPanel extends JPanel {
         add(buttonsPanel, BorderLayout.SOUTH);
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        seatMapUpdater.start();
+    }
+    
+    @Override
+    public void removeNotify() {
+        seatMapUpdater.stop();
+        super.removeNotify();
+    }
+    
     /**
-     * Toggles seat selection on/off
+     * Moves on to snacks once the seats are held, or asks for other seats. Runs on the Swing thread.
      */
-    private void toggleSeatSelection(int row, int col, String seatId) {
-        Cinema cinemaObj = movieController.getCinemaByName(cinema);
-        if (cinemaObj == null) return;
-        
-        Seat seat = cinemaObj.getSeatById(seatId);
-        if (seat == null) return;
+    private void finishHold(Booking booking, SeatHold hold) {
+        if (hold == null) {
+            JOptionPane.showMessageDialog(mainFrame, 
+                    "Some of your seats were just taken. Please choose again.", 
+                    "Seats Unavailable", 
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        booking.setHoldId(hold.getId());
         
-        JButton seatButton = seatButtons[row][col];
+        // Keep the booking with the session so its seats are released if the session ends
+        Session session = mainFrame.getAdminController().getCurrentSession();
+        if (session != null) {
+            session.setBooking(booking);
+        }
         
-        // Check if seat is already selected
-        boolean isSelected = false;
-        for (Seat selectedSeat : selectedSeats) {
-            if (selectedSeat.getSeatId().equals(seatId)) {
-                isSelected = true;
-                break;
+        // Go to snack selection
+        SnackSelectionPanel snackPanel = new SnackSelectionPanel(mainFrame, booking);
+        mainFrame.addPanel(snackPanel, "SnackSelectionPanel");
+        mainFrame.showPanel("SnackSelectionPanel");
+    }
+    
+    /**
+     * Drops selected seats that someone else has just taken (the seat map has already deselected them)
+     */
+    private void dropSeatsTakenByOthers() {
+        boolean changed = selectedSeats.removeIf(s -> !seatMap.isSelected(s.getId()));
+        if (changed) {
+            totalAmount = 0.0;
+            for (Seat seat : selectedSeats) {
+                totalAmount += seat.getPrice();
             }
+            totalLabel.setText("Total: ₱" + String.format("%.2f", totalAmount));
         }
+    }
+    
+    /**
+     * Toggles seat selection on/off
+     */
+    private void toggleSeatSelection(String seatId) {
+        Seat seat = bookingController.getSeat(showing, seatId);
+        if (seat == null) return;
         
-        if (isSelected) {
+        if (seatMap.isSelected(seatId)) {
             // Deselect seat
-            selectedSeats.removeIf(s -> s.getSeatId().equals(seatId));
+            selectedSeats.removeIf(s -> s.getId().equals(seatId));
             totalAmount -= seat.getPrice();
-            
-            // Reset button color based on seat type
-            if (seat.getType().equals("Deluxe")) {
-                seatButton.setBackground(new Color(255, 200, 200)); // Light red for deluxe
-            } else {
-                seatButton.setBackground(Color.LIGHT_GRAY); // Gray for standard
-            }
+            seatMap.setSelected(seatId, false);
         } else {
             // Select seat
             selectedSeats.add(seat);
             totalAmount += seat.getPrice();
-            seatButton.setBackground(Color.GREEN);
+            seatMap.setSelected(seatId, true);
         }
         
         // Update total label
         totalLabel.setText("Total: ₱" + String.format("%.2f", totalAmount));
     }
 
+    /**
+     * Gets the legend text of a seat tier with its ticket price, e.g. "Deluxe (₱350)"
+     */
+    private static String legendText(SeatTier tier) {
+        return tier.getDisplayName() + " (₱" + String.format("%.0f", tier.getPrice()) + ")";
+    }
+    
     /**
      * Clears all selected seats
      */
     private void clearSelectedSeats() {
-        Cinema cinemaObj = movieController.getCinemaByName(cinema);
-        if (cinemaObj == null) return;
-        
-        for (Seat seat : selectedSeats) {
-            // Find and reset button
-            for (int row = 0; row < seatButtons.length; row++) {
-                for (int col = 0; col < seatButtons[row].length; col++) {
-                    if (seatButtons[row][col].getText().equals(seat.getSeatId())) {
-                        // Reset button color based on seat type
-                        if (seat.getType().equals("Deluxe")) {
-                            seatButtons[row][col].setBackground(new Color(255, 200, 200)); // Light red for deluxe
-                        } else {
-                            seatButtons[row][col].setBackground(Color.LIGHT_GRAY); // Gray for standard
-                        }
-                    }
-                }
-            }
-        }
+        seatMap.clearSelection();
         
         // Clear selection and reset total
         selectedSeats.clear();
         totalAmount = 0.0;
         totalLabel.setText("Total: ₱0.00");
     }
-}
+}
\ No newline at end of file
@@ -9,6 +9,8 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Panel for user login
@@ -18,6 +20,7 @@ public class UserLoginPanel extends JPanel {
     private UserController userController;
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginButton;
     private JLabel statusLabel;
 
     public UserLoginPanel(MainFrame mainFrame) {
@@ -94,7 +97,7 @@ public class UserLoginPanel extends JPanel {
         
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         
-        JButton loginButton = new JButton("Login");
+        loginButton = new JButton("Login");
         loginButton.setBackground(new Color(51, 153, 255));
         loginButton.setForeground(Color.WHITE);
         loginButton.addActionListener(new ActionListener() {
@@ -157,7 +160,20 @@ public class UserLoginPanel extends JPanel {
             return;
         }
         
-        if (userController.login(username, password)) {
+        // Password hashing is slow, so check it off the Swing thread
+        loginButton.setEnabled(false);
+        statusLabel.setText("Checking credentials...");
+        userController.loginAsync(username, password).whenComplete((valid, error) ->
+                SwingUtilities.invokeLater(() -> finishLogin(error == null && valid, error)));
+    }
+    
+    /**
+     * Shows the result of a login check. Runs on the Swing thread.
+     */
+    private void finishLogin(boolean valid, Throwable error) {
+        loginButton.setEnabled(true);
+        
+        if (valid) {
             statusLabel.setText(" "); // Clear error
             
             // Go back to movie list panel with user logged in
@@ -172,6 +188,15 @@ public class UserLoginPanel extends JPanel {
                 "Login Successful", 
                 JOptionPane.INFORMATION_MESSAGE);
             
+        } else if (error != null) {
+            // Failures inside the task arrive wrapped; a full queue is rejected directly
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RejectedExecutionException) {
+                statusLabel.setText("Too many login attempts, please try again");
+            } else {
+                System.err.println("Error checking login: " + cause);
+                statusLabel.setText("Login failed: " + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+            }
         } else {
             statusLabel.setText("Invalid username or password");
             passwordField.setText("");